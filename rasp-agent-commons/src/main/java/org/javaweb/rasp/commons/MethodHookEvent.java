@@ -4,19 +4,161 @@ import org.javaweb.rasp.commons.context.RASPContext;
 import org.javaweb.rasp.commons.context.RASPRequestContextManager;
 import org.javaweb.rasp.commons.decoder.RASPDataDecoder;
 
+import java.rasp.proxy.loader.HookArgs;
 import java.rasp.proxy.loader.HookEvent;
 
 public class MethodHookEvent {
 
-	private final HookEvent hookEvent;
+	private HookEvent hookEvent;
 
 	private RASPContext raspContext;
 
-	private final RASPDataDecoder decoder;
+	private RASPDataDecoder decoder;
+
+	/**
+	 * 可回收Hook事件在线程事件池中的位置，-1表示该事件不可回收
+	 */
+	final int poolIndex;
+
+	/**
+	 * 可回收Hook事件所属的线程事件池
+	 */
+	final RASPHookEventPool pool;
+
+	/**
+	 * 可回收Hook事件复用的参数视图
+	 */
+	private HookArgs hookArgs;
+
+	/**
+	 * 是否已回收，已回收的Hook事件不允许再被访问
+	 */
+	private boolean recycled;
 
 	public MethodHookEvent(HookEvent e, RASPDataDecoder decoder) {
 		this.hookEvent = e;
 		this.decoder = decoder;
+		this.poolIndex = -1;
+		this.pool = null;
+	}
+
+	/**
+	 * 创建可回收的Hook事件，只允许由RASPHookEventPool创建
+	 *
+	 * @param pool      线程事件池
+	 * @param poolIndex 在线程事件池中的位置
+	 */
+	MethodHookEvent(RASPHookEventPool pool, int poolIndex) {
+		this.hookEvent = new HookEvent();
+		this.pool = pool;
+		this.poolIndex = poolIndex;
+		this.recycled = true;
+	}
+
+	/**
+	 * 重新初始化可回收的Hook事件
+	 */
+	MethodHookEvent reinit(Object thisObject, Object[] thisArgs, int thisMethodEvent, int hookHash,
+	                       String className, String methodName, String methodDesc, RASPDataDecoder decoder) {
+
+		this.hookEvent.reinit(thisObject, thisArgs, null, thisMethodEvent, hookHash, className, methodName, methodDesc);
+		this.decoder = decoder;
+		this.recycled = false;
+
+		return this;
+	}
+
+	/**
+	 * 使用参数视图重新初始化可回收的Hook事件，参数值由调用方通过getHookArgs写入
+	 */
+	MethodHookEvent reinit(Object thisObject, String argTypes, int thisMethodEvent, int hookHash,
+	                       String className, String methodName, String methodDesc, RASPDataDecoder decoder) {
+
+		if (hookArgs == null) {
+			this.hookArgs = new HookArgs(argTypes);
+		} else {
+			this.hookArgs.reinit(argTypes);
+		}
+
+		this.hookEvent.reinit(thisObject, hookArgs, null, thisMethodEvent, hookHash, className, methodName, methodDesc);
+		this.decoder = decoder;
+		this.recycled = false;
+
+		return this;
+	}
+
+	/**
+	 * 回收Hook事件，清除所有的对象引用
+	 */
+	void recycle() {
+		if (hookArgs != null) {
+			this.hookArgs.reset();
+		}
+
+		this.hookEvent.reset();
+		this.decoder = null;
+		this.raspContext = null;
+		this.recycled = true;
+	}
+
+	/**
+	 * 检测Hook事件是否已回收，防止防御模块在Hook方法调用结束后继续使用可回收的Hook事件
+	 *
+	 * @return Hook事件
+	 */
+	private HookEvent getHookEvent() {
+		if (recycled) {
+			throw new IllegalStateException(
+					"MethodHookEvent已被回收，如需在Hook方法调用结束后继续使用Hook事件请调用detach方法！"
+			);
+		}
+
+		return hookEvent;
+	}
+
+	/**
+	 * 切换同一次方法调用的Hook事件类型，用于在方法进入、方法退出、方法异常事件之间复用同一个Hook事件
+	 *
+	 * @param thisMethodEvent Hook类方法事件
+	 * @param thisReturnValue Hook类方法返回值
+	 * @return 当前Hook事件
+	 */
+	public MethodHookEvent reinitEvent(int thisMethodEvent, Object thisReturnValue) {
+		getHookEvent().reinitEvent(thisMethodEvent, thisReturnValue);
+
+		return this;
+	}
+
+	/**
+	 * 当前Hook事件是否是可回收的事件
+	 *
+	 * @return 是否可回收
+	 */
+	public boolean isRecyclable() {
+		return poolIndex >= 0;
+	}
+
+	/**
+	 * 获取一个不会被回收的Hook事件，防御模块需要在Hook方法调用结束后继续持有Hook事件时必须调用该方法，
+	 * 不可回收的Hook事件直接返回当前对象
+	 *
+	 * @return 不会被回收的Hook事件
+	 */
+	public MethodHookEvent detach() {
+		if (!isRecyclable()) {
+			return this;
+		}
+
+		HookEvent e = getHookEvent();
+
+		MethodHookEvent event = new MethodHookEvent(new HookEvent(
+				e.getThisObject(), e.getThisArgs(), e.getThisReturnValue(), e.getThisMethodEvent(),
+				e.getHookHash(), e.getClassName(), e.getMethodName(), e.getMethodDesc()
+		), decoder);
+
+		event.raspContext = raspContext;
+
+		return event;
 	}
 
 	public RASPDataDecoder getDecoder() {
@@ -24,11 +166,35 @@ public class MethodHookEvent {
 	}
 
 	public Object getThisObject() {
-		return hookEvent.getThisObject();
+		return getHookEvent().getThisObject();
 	}
 
+	/**
+	 * 获取Hook方法参数数组，使用参数视图创建的Hook事件会在第一次调用时装箱创建参数数组，
+	 * 只需要读取部分参数时应使用getIntArg、getObjectArg等方法
+	 *
+	 * @return 参数数组
+	 */
 	public Object[] getThisArgs() {
-		return hookEvent.getThisArgs();
+		return getHookEvent().getThisArgs();
+	}
+
+	/**
+	 * 获取Hook方法参数视图，用于Hook代理按参数下标写入参数值
+	 *
+	 * @return 参数视图，Hook事件直接使用参数数组创建时返回null
+	 */
+	public HookArgs getHookArgs() {
+		return getHookEvent().getHookArgs();
+	}
+
+	/**
+	 * 获取Hook方法参数个数
+	 *
+	 * @return 参数个数
+	 */
+	public int getArgCount() {
+		return getHookEvent().getArgCount();
 	}
 
 	/**
@@ -39,13 +205,55 @@ public class MethodHookEvent {
 	 * @return 索引对应的类型
 	 */
 	public <T> T getThisArg(int index) {
-		Object[] thisArgs = hookEvent.getThisArgs();
+		return getHookEvent().getThisArg(index);
+	}
 
-		if (thisArgs.length > index) {
-			return (T) thisArgs[index];
-		}
+	/**
+	 * 获取Hook方法的单个参数值，不会创建参数数组，基本类型参数会被装箱
+	 *
+	 * @param index 索引
+	 * @return 参数值
+	 */
+	public Object getObjectArg(int index) {
+		return getHookEvent().getObjectArg(index);
+	}
+
+	/**
+	 * 获取Hook方法的int类型参数值，不会创建参数数组也不需要装箱
+	 *
+	 * @param index 索引
+	 * @return 参数值
+	 */
+	public int getIntArg(int index) {
+		return getHookEvent().getIntArg(index);
+	}
+
+	public long getLongArg(int index) {
+		return getHookEvent().getLongArg(index);
+	}
+
+	public float getFloatArg(int index) {
+		return getHookEvent().getFloatArg(index);
+	}
+
+	public double getDoubleArg(int index) {
+		return getHookEvent().getDoubleArg(index);
+	}
+
+	public boolean getBooleanArg(int index) {
+		return getHookEvent().getBooleanArg(index);
+	}
+
+	public byte getByteArg(int index) {
+		return getHookEvent().getByteArg(index);
+	}
+
+	public char getCharArg(int index) {
+		return getHookEvent().getCharArg(index);
+	}
 
-		return null;
+	public short getShortArg(int index) {
+		return getHookEvent().getShortArg(index);
 	}
 
 	/**
@@ -54,27 +262,27 @@ public class MethodHookEvent {
 	 * @return 返回值对象
 	 */
 	public <T> T getThisReturnValue() {
-		return (T) hookEvent.getThisReturnValue();
+		return (T) getHookEvent().getThisReturnValue();
 	}
 
 	public int getThisMethodEvent() {
-		return hookEvent.getThisMethodEvent();
+		return getHookEvent().getThisMethodEvent();
 	}
 
 	public int getHookHash() {
-		return hookEvent.getHookHash();
+		return getHookEvent().getHookHash();
 	}
 
 	public String getClassName() {
-		return hookEvent.getClassName();
+		return getHookEvent().getClassName();
 	}
 
 	public String getMethodName() {
-		return hookEvent.getMethodName();
+		return getHookEvent().getMethodName();
 	}
 
 	public String getMethodDesc() {
-		return hookEvent.getMethodDesc();
+		return getHookEvent().getMethodDesc();
 	}
 
 	public RASPContext getRASPContext() {
@@ -0,0 +1,271 @@
+package org.javaweb.rasp.commons;
+
+import org.javaweb.rasp.commons.metrics.RASPHistogram;
+import org.javaweb.rasp.commons.metrics.RASPHistogramRecorder;
+import org.javaweb.rasp.commons.metrics.RASPStripedCounter;
+
+import java.rasp.proxy.loader.RASPModuleType;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.lang.System.nanoTime;
+import static java.rasp.proxy.loader.RASPModuleType.MAX_MASK_MODULE_ID;
+import static org.javaweb.rasp.commons.config.RASPConfiguration.AGENT_PROPERTIES;
+import static org.javaweb.rasp.commons.config.RASPConfiguration.MODULES_LOGGER;
+import static org.javaweb.rasp.commons.log.RASPLogger.errorLog;
+import static org.javaweb.rasp.loader.AgentConstants.AGENT_NAME;
+
+/**
+ * 进程级别的自适应熔断，按统计周期（circuit_breaker_window）统计每个模块的检测耗时和请求耗时，
+ * 当RASP模块耗时占请求耗时的比例超过预算（circuit_breaker_budget）时，将耗时最多的模块改为采样检测（每次采样间隔翻倍），
+ * 比例低于预算的一半时逐步恢复（每次采样间隔减半），熔断状态变化时记录到模块日志中。
+ * <p>
+ * raspProcessTimeout只对单个请求生效，自适应熔断在负载升高时对所有请求生效。
+ * 模块耗时由防御模块调用{@link org.javaweb.rasp.commons.context.RASPContext#recordModule}（或{@link #record(RASPModuleType, long)}）记录，
+ * 请求耗时在RASP上下文关闭时记录，
+ * 模块是否需要检测由{@link org.javaweb.rasp.commons.context.RASPContext#mustFilter(RASPModuleType)}调用{@link #allow(int)}判断。
+ */
+public class RASPCircuitBreaker {
+
+	/**
+	 * 最大采样间隔，熔断后的模块至少每64次检测一次
+	 */
+	private static final int MAX_SAMPLE_INTERVAL = 64;
+
+	/**
+	 * 当前统计周期内每个模块的检测耗时分布（包括检测次数和累计耗时），每个线程记录到自己的直方图中，
+	 * 检测时不需要修改共享的原子变量，模块第一次记录时创建
+	 */
+	private static final AtomicReferenceArray<RASPHistogramRecorder> MODULE_HISTOGRAMS =
+			new AtomicReferenceArray<RASPHistogramRecorder>(MAX_MASK_MODULE_ID);
+
+	/**
+	 * 每个模块的采样间隔，1表示每次都检测
+	 */
+	private static final AtomicIntegerArray SAMPLE_INTERVALS = new AtomicIntegerArray(MAX_MASK_MODULE_ID);
+
+	/**
+	 * 每个模块的采样计数，多线程并发修改时允许丢失计数，只影响采样的精确度
+	 */
+	private static final int[] SAMPLE_TICKS = new int[MAX_MASK_MODULE_ID];
+
+	/**
+	 * 当前统计周期内的请求耗时
+	 */
+	private static final RASPStripedCounter REQUEST_NANOS = new RASPStripedCounter();
+
+	/**
+	 * 当前统计周期内的请求数
+	 */
+	private static final RASPStripedCounter REQUEST_COUNT = new RASPStripedCounter();
+
+	/**
+	 * 当前统计周期的开始时间
+	 */
+	private static final AtomicLong WINDOW_START = new AtomicLong(nanoTime());
+
+	static {
+		for (int i = 0; i < MAX_MASK_MODULE_ID; i++) {
+			SAMPLE_INTERVALS.set(i, 1);
+		}
+	}
+
+	/**
+	 * 是否开启了自适应熔断
+	 *
+	 * @return 是否开启
+	 */
+	public static boolean isEnabled() {
+		return AGENT_PROPERTIES.isCircuitBreaker();
+	}
+
+	/**
+	 * 检测模块本次是否需要检测，未熔断的模块始终返回true，熔断后的模块按采样间隔返回true
+	 *
+	 * @param moduleId 模块ID
+	 * @return 是否需要检测
+	 */
+	public static boolean allow(int moduleId) {
+		if (moduleId < 0 || moduleId >= MAX_MASK_MODULE_ID) {
+			return true;
+		}
+
+		int interval = SAMPLE_INTERVALS.get(moduleId);
+
+		if (interval == 1) {
+			return true;
+		}
+
+		int tick = SAMPLE_TICKS[moduleId] + 1;
+		SAMPLE_TICKS[moduleId] = tick;
+
+		return tick % interval == 0;
+	}
+
+	/**
+	 * 记录模块检测耗时
+	 *
+	 * @param moduleType 模块类型
+	 * @param startNanos 检测开始时间（System.nanoTime()）
+	 */
+	public static void record(RASPModuleType moduleType, long startNanos) {
+		if (isEnabled()) {
+			recordTime(moduleType.getModuleId(), nanoTime() - startNanos);
+		}
+	}
+
+	/**
+	 * 记录模块检测耗时
+	 *
+	 * @param moduleId 模块ID
+	 * @param nanos    检测耗时（纳秒）
+	 */
+	public static void recordTime(int moduleId, long nanos) {
+		if (moduleId < 0 || moduleId >= MAX_MASK_MODULE_ID) {
+			return;
+		}
+
+		if (nanos <= 0) {
+			nanos = 1;
+		}
+
+		RASPHistogramRecorder recorder = MODULE_HISTOGRAMS.get(moduleId);
+
+		if (recorder == null) {
+			recorder = createRecorder(moduleId);
+		}
+
+		recorder.record(nanos);
+	}
+
+	private static RASPHistogramRecorder createRecorder(int moduleId) {
+		RASPHistogramRecorder recorder = new RASPHistogramRecorder(RASPModuleType.getModuleName(moduleId));
+
+		if (MODULE_HISTOGRAMS.compareAndSet(moduleId, null, recorder)) {
+			return recorder;
+		}
+
+		return MODULE_HISTOGRAMS.get(moduleId);
+	}
+
+	/**
+	 * 记录请求耗时，统计周期结束时由记录请求的线程计算RASP耗时比例并调整模块的采样间隔
+	 *
+	 * @param nanos 请求耗时（纳秒）
+	 */
+	public static void recordRequest(long nanos) {
+		if (nanos > 0) {
+			REQUEST_NANOS.add(nanos);
+			REQUEST_COUNT.increment();
+		}
+
+		long now    = nanoTime();
+		long start  = WINDOW_START.get();
+		long window = TimeUnit.SECONDS.toNanos(AGENT_PROPERTIES.getCircuitBreakerWindow());
+
+		// 只有更新统计周期开始时间成功的线程负责计算
+		if (now - start >= window && WINDOW_START.compareAndSet(start, now)) {
+			try {
+				evaluate();
+			} catch (Exception e) {
+				errorLog("RASP自适应熔断计算异常：", e);
+			}
+		}
+	}
+
+	/**
+	 * 获取模块当前的采样间隔
+	 *
+	 * @param moduleId 模块ID
+	 * @return 采样间隔，1表示未熔断
+	 */
+	public static int getSampleInterval(int moduleId) {
+		if (moduleId < 0 || moduleId >= MAX_MASK_MODULE_ID) {
+			return 1;
+		}
+
+		return SAMPLE_INTERVALS.get(moduleId);
+	}
+
+	private static synchronized void evaluate() {
+		long requestNanos = REQUEST_NANOS.sum();
+		long requestCount = REQUEST_COUNT.sum();
+
+		// 读取后清零，读取和清零之间记录的值会丢失，只影响统计的精确度
+		REQUEST_NANOS.reset();
+		REQUEST_COUNT.reset();
+
+		RASPHistogram[] histograms  = new RASPHistogram[MAX_MASK_MODULE_ID];
+		long[]          moduleNanos = new long[MAX_MASK_MODULE_ID];
+		long            totalNanos  = 0;
+
+		for (int i = 0; i < MAX_MASK_MODULE_ID; i++) {
+			RASPHistogramRecorder recorder = MODULE_HISTOGRAMS.get(i);
+
+			if (recorder != null) {
+				histograms[i] = recorder.snapshot();
+				recorder.reset();
+
+				moduleNanos[i] = histograms[i].getTotalValue();
+				totalNanos += moduleNanos[i];
+			}
+		}
+
+		if (requestNanos <= 0) {
+			return;
+		}
+
+		// 采样检测的模块按采样间隔估算全量检测的耗时
+		long estimatedNanos = 0;
+
+		for (int i = 0; i < MAX_MASK_MODULE_ID; i++) {
+			estimatedNanos += moduleNanos[i] * SAMPLE_INTERVALS.get(i);
+		}
+
+		int budget     = AGENT_PROPERTIES.getCircuitBreakerBudget();
+		int percent    = (int) (totalNanos * 100 / requestNanos);
+		int estPercent = (int) (estimatedNanos * 100 / requestNanos);
+
+		if (percent > budget) {
+			// 熔断耗时最多且未达到最大采样间隔的模块
+			int  moduleId = -1;
+			long max      = 0;
+
+			for (int i = 0; i < MAX_MASK_MODULE_ID; i++) {
+				if (moduleNanos[i] > max && SAMPLE_INTERVALS.get(i) < MAX_SAMPLE_INTERVAL) {
+					max = moduleNanos[i];
+					moduleId = i;
+				}
+			}
+
+			if (moduleId >= 0) {
+				int interval = SAMPLE_INTERVALS.get(moduleId) * 2;
+				SAMPLE_INTERVALS.set(moduleId, interval);
+
+				MODULES_LOGGER.info(
+						"{}自适应熔断：RASP耗时占比{}%超过预算{}%（请求数：{}），模块：{}（检测次数：{}，P50：{}ns，P99：{}ns）采样间隔调整为：{}",
+						AGENT_NAME, percent, budget, requestCount, RASPModuleType.getModuleName(moduleId),
+						histograms[moduleId].getTotalCount(), histograms[moduleId].getValueAtPercentile(50),
+						histograms[moduleId].getValueAtPercentile(99), interval
+				);
+			}
+		} else if (estPercent * 2 < budget) {
+			// 全量检测的估算耗时占比低于预算的一半时逐步恢复
+			for (int i = 0; i < MAX_MASK_MODULE_ID; i++) {
+				int interval = SAMPLE_INTERVALS.get(i);
+
+				if (interval > 1) {
+					SAMPLE_INTERVALS.set(i, interval / 2);
+
+					MODULES_LOGGER.info(
+							"{}自适应熔断：RASP耗时占比{}%低于预算{}%，模块：{}采样间隔恢复为：{}",
+							AGENT_NAME, estPercent, budget, RASPModuleType.getModuleName(i), interval / 2
+					);
+				}
+			}
+		}
+	}
+
+}
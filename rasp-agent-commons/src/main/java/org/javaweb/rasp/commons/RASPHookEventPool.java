@@ -0,0 +1,151 @@
+package org.javaweb.rasp.commons;
+
+import org.javaweb.rasp.commons.decoder.RASPDataDecoder;
+
+import java.rasp.proxy.loader.HookArgs;
+import java.rasp.proxy.loader.HookEvent;
+
+import static org.javaweb.rasp.commons.config.RASPConfiguration.AGENT_PROPERTIES;
+
+/**
+ * 线程级别的可回收Hook事件池，开启后同一线程中的Hook方法调用复用MethodHookEvent和HookEvent对象，
+ * 同一次方法调用的方法进入、方法退出、方法异常事件使用同一个MethodHookEvent（通过reinitEvent切换事件类型）。
+ * <p>
+ * Hook方法中可能会再次调用其他被Hook的方法，所以事件池按照调用深度存放事件对象，超过最大深度时不再复用。
+ * 事件回收后会清除所有的对象引用，防御模块继续访问已回收的事件会抛出IllegalStateException，
+ * 需要在Hook方法调用结束后继续持有事件时必须调用{@link MethodHookEvent#detach()}。
+ */
+public class RASPHookEventPool {
+
+	/**
+	 * 最大复用的Hook调用嵌套深度
+	 */
+	private static final int MAX_DEPTH = 16;
+
+	private static final ThreadLocal<RASPHookEventPool> THREAD_POOL = new ThreadLocal<RASPHookEventPool>() {
+		@Override
+		protected RASPHookEventPool initialValue() {
+			return new RASPHookEventPool();
+		}
+	};
+
+	private final MethodHookEvent[] events = new MethodHookEvent[MAX_DEPTH];
+
+	/**
+	 * 事件池所属的线程
+	 */
+	private final Thread owner = Thread.currentThread();
+
+	/**
+	 * 当前线程正在使用的事件数
+	 */
+	private int depth;
+
+	/**
+	 * 是否开启了可回收Hook事件模式
+	 *
+	 * @return 是否开启
+	 */
+	public static boolean isEnabled() {
+		return AGENT_PROPERTIES.isHookEventRecycle();
+	}
+
+	/**
+	 * 获取当前线程中可复用的Hook事件，使用完成后必须调用release回收，未开启hook_event_recycle时返回不可回收的事件
+	 *
+	 * @return Hook事件
+	 */
+	public static MethodHookEvent acquire(Object thisObject, Object[] thisArgs, int thisMethodEvent, int hookHash,
+	                                      String className, String methodName, String methodDesc,
+	                                      RASPDataDecoder decoder) {
+
+		// 未开启hook_event_recycle时创建不可回收的事件
+		if (!isEnabled()) {
+			return new MethodHookEvent(new HookEvent(
+					thisObject, thisArgs, null, thisMethodEvent, hookHash, className, methodName, methodDesc
+			), decoder);
+		}
+
+		RASPHookEventPool pool  = THREAD_POOL.get();
+		int               index = pool.depth;
+
+		// 超过最大嵌套深度时创建不可回收的事件
+		if (index >= MAX_DEPTH) {
+			return new MethodHookEvent(new HookEvent(
+					thisObject, thisArgs, null, thisMethodEvent, hookHash, className, methodName, methodDesc
+			), decoder);
+		}
+
+		MethodHookEvent event = pool.events[index];
+
+		if (event == null) {
+			event = pool.events[index] = new MethodHookEvent(pool, index);
+		}
+
+		pool.depth = index + 1;
+
+		return event.reinit(thisObject, thisArgs, thisMethodEvent, hookHash, className, methodName, methodDesc, decoder);
+	}
+
+	/**
+	 * 获取当前线程中可复用的Hook事件，Hook事件使用可复用的参数视图，调用方需要通过
+	 * {@link MethodHookEvent#getHookArgs()}按参数下标写入参数值，使用完成后必须调用release回收，
+	 * 未开启hook_event_recycle时返回不可回收的事件
+	 *
+	 * @param argTypes 参数类型，每个参数一个方法描述符类型字符，如："LII"
+	 * @return Hook事件
+	 */
+	public static MethodHookEvent acquire(Object thisObject, String argTypes, int thisMethodEvent, int hookHash,
+	                                      String className, String methodName, String methodDesc,
+	                                      RASPDataDecoder decoder) {
+
+		// 未开启hook_event_recycle时创建不可回收的事件
+		if (!isEnabled()) {
+			return new MethodHookEvent(new HookEvent(
+					thisObject, new HookArgs(argTypes), null, thisMethodEvent, hookHash, className, methodName, methodDesc
+			), decoder);
+		}
+
+		RASPHookEventPool pool  = THREAD_POOL.get();
+		int               index = pool.depth;
+
+		// 超过最大嵌套深度时创建不可回收的事件
+		if (index >= MAX_DEPTH) {
+			return new MethodHookEvent(new HookEvent(
+					thisObject, new HookArgs(argTypes), null, thisMethodEvent, hookHash, className, methodName, methodDesc
+			), decoder);
+		}
+
+		MethodHookEvent event = pool.events[index];
+
+		if (event == null) {
+			event = pool.events[index] = new MethodHookEvent(pool, index);
+		}
+
+		pool.depth = index + 1;
+
+		return event.reinit(thisObject, argTypes, thisMethodEvent, hookHash, className, methodName, methodDesc, decoder);
+	}
+
+	/**
+	 * 回收Hook事件，不可回收的事件直接忽略。回收时同时回收所有嵌套在该事件之后且未正确回收的事件
+	 *
+	 * @param event Hook事件
+	 */
+	public static void release(MethodHookEvent event) {
+		RASPHookEventPool pool  = event.pool;
+		int               index = event.poolIndex;
+
+		// 只能回收当前线程中未回收的事件
+		if (pool == null || pool.owner != Thread.currentThread() || index >= pool.depth) {
+			return;
+		}
+
+		for (int i = pool.depth - 1; i >= index; i--) {
+			pool.events[i].recycle();
+		}
+
+		pool.depth = index;
+	}
+
+}
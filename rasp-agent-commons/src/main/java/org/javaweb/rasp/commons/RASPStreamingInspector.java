@@ -0,0 +1,27 @@
+package org.javaweb.rasp.commons;
+
+import java.rasp.proxy.loader.HookResult;
+
+/**
+ * 单个请求的增量反序列化检测对象，由{@link RASPStreamingSerialization#createInspector}创建
+ */
+public interface RASPStreamingInspector {
+
+	/**
+	 * 检测新写入的字节，字节数组在方法返回后可能被复用，需要保留的数据必须复制
+	 *
+	 * @param b   字节数组
+	 * @param off 开始位置
+	 * @param len 字节数
+	 * @return 检测结果，返回THROW类型的结果时阻断请求并停止检测
+	 */
+	HookResult<?> inspect(byte[] b, int off, int len);
+
+	/**
+	 * 请求体写入完成（达到Content-Length或流关闭），检测未完成的数据（如：未闭合的JSON/XML）
+	 *
+	 * @return 检测结果
+	 */
+	HookResult<?> finish();
+
+}
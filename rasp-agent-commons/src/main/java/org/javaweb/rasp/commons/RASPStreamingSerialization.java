@@ -0,0 +1,22 @@
+package org.javaweb.rasp.commons;
+
+import org.javaweb.rasp.commons.context.RASPContext;
+
+/**
+ * 增量反序列化检测，RASP输出流缓存（{@link org.javaweb.rasp.commons.cache.RASPOutputStreamCache}）
+ * 每次写入数据时都会将写入的字节交给{@link RASPStreamingInspector}检测，不需要等待请求体全部缓存后再检测，
+ * 检测到攻击时可以立即阻断，检测占用的内存只与检测实现（如：流式JSON/XML解析器）的状态相关，与请求体大小无关。
+ * <p>
+ * RASPSerialization实现类可以同时实现该接口，createInspector返回null时仍使用deserialization检测完整的缓存流。
+ */
+public interface RASPStreamingSerialization extends RASPSerialization {
+
+	/**
+	 * 创建单个请求的增量检测对象，增量检测对象只会被请求线程访问
+	 *
+	 * @param context RASP上下文
+	 * @return 增量检测对象，返回null表示当前请求不使用增量检测
+	 */
+	RASPStreamingInspector createInspector(RASPContext context);
+
+}
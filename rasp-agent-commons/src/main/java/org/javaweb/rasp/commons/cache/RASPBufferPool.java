@@ -0,0 +1,78 @@
+package org.javaweb.rasp.commons.cache;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.javaweb.rasp.commons.config.RASPConfiguration.AGENT_PROPERTIES;
+
+/**
+ * 请求/响应流缓存共享的固定大小内存块池，池中最多保留stream_buffer_pool_size（MB）的内存块，
+ * 超过后归还的内存块直接交给GC回收。
+ * <p>
+ * 内存块由{@link RASPChunkedOutputStream}按需获取，在RASP请求缓存关闭时归还，归还后不允许再访问。
+ */
+public class RASPBufferPool {
+
+	/**
+	 * 内存块大小的位移，内存块大小为：1 << CHUNK_SHIFT
+	 */
+	public static final int CHUNK_SHIFT = 13;
+
+	/**
+	 * 内存块大小：8KB
+	 */
+	public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+	private static final ConcurrentLinkedQueue<byte[]> POOL = new ConcurrentLinkedQueue<byte[]>();
+
+	/**
+	 * 池中的内存块数，ConcurrentLinkedQueue的size方法需要遍历队列
+	 */
+	private static final AtomicInteger POOL_SIZE = new AtomicInteger();
+
+	/**
+	 * 获取内存块，池中没有空闲内存块时创建新的内存块
+	 *
+	 * @return 内存块，内容未清空
+	 */
+	public static byte[] acquire() {
+		byte[] chunk = POOL.poll();
+
+		if (chunk != null) {
+			POOL_SIZE.decrementAndGet();
+			return chunk;
+		}
+
+		return new byte[CHUNK_SIZE];
+	}
+
+	/**
+	 * 归还内存块，池中的内存块超过最大值时丢弃
+	 *
+	 * @param chunk 内存块
+	 */
+	public static void release(byte[] chunk) {
+		if (chunk == null || chunk.length != CHUNK_SIZE) {
+			return;
+		}
+
+		int maxChunks = (AGENT_PROPERTIES.getStreamBufferPoolSize() << 20) >> CHUNK_SHIFT;
+
+		if (POOL_SIZE.incrementAndGet() > maxChunks) {
+			POOL_SIZE.decrementAndGet();
+			return;
+		}
+
+		POOL.offer(chunk);
+	}
+
+	/**
+	 * 获取池中的空闲内存块数
+	 *
+	 * @return 空闲内存块数
+	 */
+	public static int getPooledChunks() {
+		return POOL_SIZE.get();
+	}
+
+}
@@ -15,6 +15,12 @@ public class RASPByteArrayInputStream extends InputStream {
 
 	protected boolean closed;
 
+	/**
+	 * 由不使用连续缓冲区的子类调用，子类需要设置count并重写读取方法
+	 */
+	protected RASPByteArrayInputStream() {
+	}
+
 	public RASPByteArrayInputStream(byte[] buf) {
 		this.buf = buf;
 		this.pos = 0;
@@ -4,18 +4,45 @@ import org.javaweb.rasp.commons.attack.RASPPosition;
 
 import java.util.Arrays;
 
-import static org.javaweb.rasp.commons.utils.StringUtils.toLowerCase;
-
 public class RASPCachedParameter {
 
+	private static final int LOWER_CASE_VIEW = 0;
+
+	private static final int DECODED_VIEW = 1;
+
+	private static final int NORMALIZED_PATH_VIEW = 2;
+
 	private String key;
 
 	private String[] value;
 
+	/**
+	 * 参数值的小写视图
+	 */
 	private String[] lowerCaseValue;
 
+	/**
+	 * 参数值的解码视图（URL解码、Unicode和八进制反转义）
+	 */
+	private String[] decodedValue;
+
+	/**
+	 * 参数值的路径标准化视图（URL解码后移除多余的"/"、"./"和"../"）
+	 */
+	private String[] normalizedPathValue;
+
 	private RASPPosition raspPosition;
 
+	/**
+	 * 缓存该参数的集合，修改已缓存的参数时需要更新集合和参数值索引
+	 */
+	private RASPParameterSet<?> owner;
+
+	/**
+	 * 缓存的hashCode，0表示未计算，修改参数名、参数值或参数位置时重新计算
+	 */
+	private int hash;
+
 	public RASPCachedParameter(String key, String value, RASPPosition position) {
 		this(key, value != null ? new String[]{value} : new String[0], position);
 	}
@@ -31,29 +58,109 @@ public class RASPCachedParameter {
 	}
 
 	public void setKey(String key) {
+		RASPParameterSet<?> set = beforeUpdate();
+
 		this.key = key;
+		this.hash = 0;
+
+		afterUpdate(set);
 	}
 
 	public String[] getValue() {
 		return value;
 	}
 
+	/**
+	 * 修改参数值，已缓存的参数会同时更新缓存集合和参数值索引，不允许直接修改getValue返回的数组
+	 *
+	 * @param value 参数值
+	 */
 	public void setValue(String[] value) {
+		RASPParameterSet<?> set = beforeUpdate();
+
 		this.value = value;
+		this.lowerCaseValue = null;
+		this.decodedValue = null;
+		this.normalizedPathValue = null;
+		this.hash = 0;
+
+		afterUpdate(set);
 	}
 
+	/**
+	 * 获取参数值的小写视图，只转换大小写，不做解码
+	 *
+	 * @return 小写的参数值，不需要转换的参数值与原参数值是同一个字符串
+	 */
 	public String[] getLowerCaseValue() {
-		if (lowerCaseValue != null)
-			return lowerCaseValue;
+		if (lowerCaseValue == null) {
+			this.lowerCaseValue = createView(LOWER_CASE_VIEW);
+		}
 
-		lowerCaseValue = new String[value.length];
+		return lowerCaseValue;
+	}
+
+	/**
+	 * 获取参数值的解码视图，所有防御模块共享同一个解码结果
+	 *
+	 * @return 解码后的参数值，不需要解码的参数值与原参数值是同一个字符串
+	 */
+	public String[] getDecodedValue() {
+		if (decodedValue == null) {
+			this.decodedValue = createView(DECODED_VIEW);
+		}
+
+		return decodedValue;
+	}
+
+	/**
+	 * 获取参数值的路径标准化视图，用于文件路径、URL类的检测
+	 *
+	 * @return 路径标准化后的参数值，不需要标准化的参数值与原参数值是同一个字符串
+	 */
+	public String[] getNormalizedPathValue() {
+		if (normalizedPathValue == null) {
+			this.normalizedPathValue = createView(NORMALIZED_PATH_VIEW);
+		}
+
+		return normalizedPathValue;
+	}
+
+	/**
+	 * 计算所有参数值的一个视图，所有参数值都不需要转换时直接使用原参数值数组
+	 */
+	private String[] createView(int type) {
+		String[] view = value;
 
 		for (int i = 0; i < value.length; i++) {
 			String val = value[i];
-			lowerCaseValue[i] = toLowerCase(val);
+			String str;
+
+			if (type == LOWER_CASE_VIEW) {
+				str = RASPParameterNormalizer.lowerCase(val);
+			} else if (type == DECODED_VIEW) {
+				str = RASPParameterNormalizer.decoded(val);
+			} else {
+				str = RASPParameterNormalizer.normalizedPath(val);
+			}
+
+			if (str != val && view == value) {
+				view = copyOf(value, i);
+			}
+
+			if (view != value) {
+				view[i] = str;
+			}
 		}
 
-		return lowerCaseValue;
+		return view;
+	}
+
+	private static String[] copyOf(String[] value, int length) {
+		String[] array = new String[value.length];
+		System.arraycopy(value, 0, array, 0, length);
+
+		return array;
 	}
 
 	public RASPPosition getRaspAttackPosition() {
@@ -61,7 +168,46 @@ public class RASPCachedParameter {
 	}
 
 	public void setRaspAttackPosition(RASPPosition position) {
+		RASPParameterSet<?> set = beforeUpdate();
+
 		this.raspPosition = position;
+		this.hash = 0;
+
+		afterUpdate(set);
+	}
+
+	/**
+	 * 修改前从缓存集合中删除（hashCode会改变）
+	 *
+	 * @return 缓存该参数的集合，未缓存时返回null
+	 */
+	private RASPParameterSet<?> beforeUpdate() {
+		RASPParameterSet<?> set = owner;
+
+		if (set != null) {
+			set.beforeUpdate(this);
+		}
+
+		return set;
+	}
+
+	/**
+	 * 修改后重新加入缓存集合，并使参数值索引和多模式匹配自动机失效
+	 */
+	private void afterUpdate(RASPParameterSet<?> set) {
+		if (set != null) {
+			set.afterUpdate(this);
+		}
+	}
+
+	void setOwner(RASPParameterSet<?> owner) {
+		this.owner = owner;
+	}
+
+	void clearOwner(RASPParameterSet<?> owner) {
+		if (this.owner == owner) {
+			this.owner = null;
+		}
 	}
 
 	public boolean containsValue(String value) {
@@ -81,6 +227,7 @@ public class RASPCachedParameter {
 
 		RASPCachedParameter that = (RASPCachedParameter) o;
 
+		if (hashCode() != that.hashCode()) return false;
 		if (!key.equals(that.key)) return false;
 		if (!Arrays.equals(value, that.value)) return false;
 		return raspPosition == that.raspPosition;
@@ -88,9 +235,16 @@ public class RASPCachedParameter {
 
 	@Override
 	public int hashCode() {
-		int result = key != null ? key.hashCode() : 0;
-		result = 31 * result + Arrays.hashCode(value);
-		result = 31 * result + (raspPosition != null ? raspPosition.hashCode() : 0);
+		int result = hash;
+
+		// 参数值数组的hashCode需要遍历所有参数值，只在第一次调用时计算
+		if (result == 0) {
+			result = key != null ? key.hashCode() : 0;
+			result = 31 * result + Arrays.hashCode(value);
+			result = 31 * result + (raspPosition != null ? raspPosition.hashCode() : 0);
+			this.hash = result;
+		}
+
 		return result;
 	}
 
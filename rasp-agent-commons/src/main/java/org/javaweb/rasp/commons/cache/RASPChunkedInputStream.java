@@ -0,0 +1,184 @@
+package org.javaweb.rasp.commons.cache;
+
+import java.io.IOException;
+
+import static org.javaweb.rasp.commons.log.RASPLogger.errorLog;
+
+/**
+ * {@link RASPChunkedOutputStream}的输入流视图，按内存块顺序读取数据，不会复制已写入的数据。
+ * 缓存流超过内存缓存大小时，内存块之后的数据从{@link RASPFileBuffer}中读取。
+ * <p>
+ * 为了兼容直接访问缓冲区的{@link org.javaweb.rasp.commons.RASPSerialization}实现，
+ * 调用{@link #getBuf()}或{@link #getBufString()}时才会将所有内存块复制到一个连续的数组中。
+ * 输出流关闭（内存块归还到内存块池、临时文件删除）或读取临时文件失败后读取会返回-1。
+ * <p>
+ * 与输出流相同，输入流视图只会被请求线程读取，读取方法都不是同步的，开启stream_owner_check后检查访问线程。
+ */
+public class RASPChunkedInputStream extends RASPByteArrayInputStream {
+
+	private final RASPChunkedOutputStream source;
+
+	/**
+	 * 内存块中的字节数
+	 */
+	private final int memoryCount;
+
+	/**
+	 * 内存块之后的数据，没有写入临时文件时为null
+	 */
+	private final RASPFileBuffer fileBuffer;
+
+	RASPChunkedInputStream(RASPChunkedOutputStream source, int count) {
+		this(source, count, null, 0);
+	}
+
+	RASPChunkedInputStream(RASPChunkedOutputStream source, int memoryCount, RASPFileBuffer fileBuffer, int fileCount) {
+		super();
+
+		this.source = source;
+		this.memoryCount = memoryCount;
+		this.fileBuffer = fileBuffer;
+		this.count = memoryCount + fileCount;
+	}
+
+	private boolean isSourceClosed() {
+		return source.isClosed() || (fileBuffer != null && fileBuffer.isClosed());
+	}
+
+	private void copy(int pos, byte[] b, int off, int len) throws IOException {
+		if (pos < memoryCount) {
+			int n = Math.min(len, memoryCount - pos);
+
+			if (!source.read(pos, b, off, n)) {
+				throw new IOException("RASPChunkedOutputStream closed");
+			}
+
+			pos += n;
+			off += n;
+			len -= n;
+		}
+
+		if (len > 0) {
+			fileBuffer.read(pos - memoryCount, b, off, len);
+		}
+	}
+
+	@Override
+	public byte[] getBuf() {
+		if (buf == null && !isSourceClosed()) {
+			byte[] bytes = new byte[count];
+
+			try {
+				copy(0, bytes, 0, count);
+			} catch (IOException e) {
+				errorLog("读取RASP流缓存临时文件失败：", e);
+				return null;
+			}
+
+			this.buf = bytes;
+		}
+
+		return buf;
+	}
+
+	@Override
+	public String getBufString() {
+		byte[] bytes = getBuf();
+
+		return bytes != null ? new String(bytes, pos, count - pos) : null;
+	}
+
+	@Override
+	public int read() {
+		RASPStreamOwner.check(source.getOwner());
+
+		if (pos >= count || isSourceClosed()) {
+			return -1;
+		}
+
+		if (pos < memoryCount) {
+			int b = source.read(pos);
+
+			if (b >= 0) {
+				pos++;
+			}
+
+			return b;
+		}
+
+		try {
+			int b = fileBuffer.read(pos - memoryCount);
+			pos++;
+
+			return b;
+		} catch (IOException e) {
+			errorLog("读取RASP流缓存临时文件失败：", e);
+			return -1;
+		}
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) {
+		if (b == null) {
+			throw new NullPointerException();
+		} else if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		RASPStreamOwner.check(source.getOwner());
+
+		if (pos >= count || isSourceClosed()) {
+			return -1;
+		}
+
+		int avail = count - pos;
+
+		if (len > avail) {
+			len = avail;
+		}
+
+		if (len <= 0) {
+			return 0;
+		}
+
+		try {
+			copy(pos, b, off, len);
+		} catch (IOException e) {
+			errorLog("读取RASP流缓存临时文件失败：", e);
+			return -1;
+		}
+
+		pos += len;
+
+		return len;
+	}
+
+	@Override
+	public long skip(long n) {
+		long k = count - pos;
+
+		if (n < k) {
+			k = n < 0 ? 0 : n;
+		}
+
+		pos += k;
+		return k;
+	}
+
+	@Override
+	public int available() {
+		return count - pos;
+	}
+
+	@Override
+	public void reset() {
+		pos = mark;
+	}
+
+	@Override
+	public void close() {
+		this.buf = null;
+		this.closed = true;
+	}
+
+}
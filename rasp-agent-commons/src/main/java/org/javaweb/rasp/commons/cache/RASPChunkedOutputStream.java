@@ -0,0 +1,238 @@
+package org.javaweb.rasp.commons.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static org.javaweb.rasp.commons.cache.RASPBufferPool.CHUNK_SHIFT;
+import static org.javaweb.rasp.commons.cache.RASPBufferPool.CHUNK_SIZE;
+
+/**
+ * 分块字节输出流，使用{@link RASPBufferPool}中的固定大小内存块存放数据，
+ * 写入时不需要像RASPByteArrayOutputStream那样按2倍扩容并复制已写入的数据，也不会产生大数组。
+ * <p>
+ * 关闭后内存块归还到内存块池，关闭前创建的输入流视图不能再读取数据，关闭后的写入会被忽略。
+ * <p>
+ * 缓存流通常只会被创建它的请求线程访问，所有方法都不是同步的，开启stream_owner_check后检查访问线程。
+ * 异步Servlet可能在其他线程中读写，内存块归还后再被其他线程写入会破坏其他请求的数据，
+ * 所以只要有其他线程访问过或者在其他线程中关闭，关闭时就不归还内存块，由GC回收。
+ */
+public class RASPChunkedOutputStream extends OutputStream {
+
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private static final byte[][] EMPTY_CHUNKS = new byte[0][];
+
+	/**
+	 * 内存块数组
+	 */
+	private byte[][] chunks = new byte[8][];
+
+	/**
+	 * 已分配的内存块数
+	 */
+	private int chunkCount;
+
+	/**
+	 * 已写入的字节数
+	 */
+	private int count;
+
+	private volatile boolean closed;
+
+	/**
+	 * 是否被创建线程以外的线程访问过，与closed一起保证：关闭时没有看到其他线程的访问，其他线程就一定能看到关闭状态
+	 */
+	private volatile boolean shared;
+
+	/**
+	 * 创建输出流的线程，不受stream_owner_check控制
+	 */
+	private final Thread creator = Thread.currentThread();
+
+	/**
+	 * 所属线程，未开启stream_owner_check时为null
+	 */
+	private final RASPStreamOwner owner = RASPStreamOwner.current();
+
+	/**
+	 * 访问内存块前调用，记录其他线程的访问后再检查关闭状态
+	 *
+	 * @return 输出流是否已关闭
+	 */
+	private boolean isClosedForAccess() {
+		if (!shared && Thread.currentThread() != creator) {
+			this.shared = true;
+		}
+
+		return closed;
+	}
+
+	@Override
+	public void write(int b) {
+		RASPStreamOwner.check(owner);
+
+		if (isClosedForAccess()) {
+			return;
+		}
+
+		int index = count & CHUNK_MASK;
+
+		if (index == 0 && (count >>> CHUNK_SHIFT) == chunkCount) {
+			addChunk();
+		}
+
+		chunks[count >>> CHUNK_SHIFT][index] = (byte) b;
+		count++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) {
+		if ((off < 0) || (off > b.length) || (len < 0) || ((off + len) - b.length > 0)) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		RASPStreamOwner.check(owner);
+
+		if (isClosedForAccess()) {
+			return;
+		}
+
+		while (len > 0) {
+			int index = count & CHUNK_MASK;
+
+			if (index == 0 && (count >>> CHUNK_SHIFT) == chunkCount) {
+				addChunk();
+			}
+
+			int n = Math.min(len, CHUNK_SIZE - index);
+
+			System.arraycopy(b, off, chunks[count >>> CHUNK_SHIFT], index, n);
+			count += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	private void addChunk() {
+		if (chunkCount == chunks.length) {
+			chunks = Arrays.copyOf(chunks, chunkCount * 2);
+		}
+
+		chunks[chunkCount++] = RASPBufferPool.acquire();
+	}
+
+	RASPStreamOwner getOwner() {
+		return owner;
+	}
+
+	/**
+	 * 读取指定位置的字节，由输入流视图调用
+	 *
+	 * @return 字节，输出流已关闭时返回-1
+	 */
+	int read(int pos) {
+		if (isClosedForAccess()) {
+			return -1;
+		}
+
+		return chunks[pos >>> CHUNK_SHIFT][pos & CHUNK_MASK] & 0xff;
+	}
+
+	/**
+	 * 复制指定位置的字节到数组中，由输入流视图调用
+	 *
+	 * @return 是否复制成功，输出流已关闭时返回false
+	 */
+	boolean read(int pos, byte[] b, int off, int len) {
+		if (isClosedForAccess()) {
+			return false;
+		}
+
+		while (len > 0) {
+			int index = pos & CHUNK_MASK;
+			int n     = Math.min(len, CHUNK_SIZE - index);
+
+			System.arraycopy(chunks[pos >>> CHUNK_SHIFT], index, b, off, n);
+			pos += n;
+			off += n;
+			len -= n;
+		}
+
+		return true;
+	}
+
+	public void writeTo(OutputStream out) throws IOException {
+		if (isClosedForAccess()) {
+			return;
+		}
+
+		for (int pos = 0; pos < count; pos += CHUNK_SIZE) {
+			out.write(chunks[pos >>> CHUNK_SHIFT], 0, Math.min(CHUNK_SIZE, count - pos));
+		}
+	}
+
+	/**
+	 * 创建按内存块顺序读取的输入流视图，不会复制已写入的数据
+	 *
+	 * @return 输入流视图，只能读取创建时已写入的数据
+	 */
+	public RASPByteArrayInputStream toRASPByteArrayInputStream() {
+		RASPStreamOwner.check(owner);
+
+		return new RASPChunkedInputStream(this, count);
+	}
+
+	/**
+	 * 清空已写入的数据，保留已分配的内存块
+	 */
+	public void reset() {
+		count = 0;
+	}
+
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[count];
+
+		return read(0, bytes, 0, count) ? bytes : new byte[0];
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public String toString() {
+		return new String(toByteArray());
+	}
+
+	/**
+	 * 关闭输出流并将内存块归还到内存块池，被其他线程访问过或者在其他线程中关闭时不归还内存块
+	 */
+	@Override
+	public void close() {
+		RASPStreamOwner.check(owner);
+
+		if (closed) {
+			return;
+		}
+
+		this.closed = true;
+
+		// 其他线程可能仍在读写内存块，内存块不能再交给其他请求使用
+		if (shared || Thread.currentThread() != creator) {
+			return;
+		}
+
+		for (int i = 0; i < chunkCount; i++) {
+			RASPBufferPool.release(chunks[i]);
+		}
+
+		this.chunks = EMPTY_CHUNKS;
+		this.chunkCount = 0;
+		this.count = 0;
+	}
+
+}
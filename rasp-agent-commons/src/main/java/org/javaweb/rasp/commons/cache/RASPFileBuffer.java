@@ -0,0 +1,222 @@
+package org.javaweb.rasp.commons.cache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static org.javaweb.rasp.commons.utils.IOUtils.closeQuietly;
+
+/**
+ * 使用临时文件存放数据的缓冲区，只能顺序写入，可以按位置读取。
+ * <p>
+ * 用于存放超过内存缓存大小的请求/响应流，数据由操作系统的页缓存管理，不占用Java堆内存，关闭时删除临时文件。
+ * 使用FileChannel按位置读写而不是内存映射：内存映射在GC前无法释放（Windows下无法删除临时文件），
+ * 磁盘空间不足时写入映射内存会抛出InternalError（SIGBUS），按位置读写失败时只会抛出IOException。
+ * <p>
+ * 写入的数据先放在写缓冲区中，写满后写入文件，读取单个字节时使用读缓冲区，避免每个字节都读写一次文件。
+ * 该类不是线程安全的，只会被请求线程访问，开启stream_owner_check后检查写入线程。
+ */
+public class RASPFileBuffer implements Closeable {
+
+	/**
+	 * 读写缓冲区大小：8KB
+	 */
+	private static final int BUFFER_SIZE = 8192;
+
+	private final File file;
+
+	private final RandomAccessFile randomAccessFile;
+
+	private final FileChannel channel;
+
+	/**
+	 * 写缓冲区，写满后写入文件
+	 */
+	private final byte[] writeBuffer = new byte[BUFFER_SIZE];
+
+	private int writeCount;
+
+	/**
+	 * 已写入文件的字节数
+	 */
+	private int fileSize;
+
+	/**
+	 * 读缓冲区，缓存文件中从readStart开始的readCount个字节
+	 */
+	private byte[] readBuffer;
+
+	private int readStart;
+
+	private int readCount;
+
+	private boolean closed;
+
+	/**
+	 * 所属线程，未开启stream_owner_check时为null
+	 */
+	private final RASPStreamOwner owner = RASPStreamOwner.current();
+
+	/**
+	 * 在指定目录中创建临时文件
+	 *
+	 * @param directory 临时文件目录
+	 * @throws IOException 创建临时文件失败
+	 */
+	public RASPFileBuffer(File directory) throws IOException {
+		this.file = File.createTempFile("rasp-stream-", ".tmp", directory);
+
+		try {
+			this.randomAccessFile = new RandomAccessFile(file, "rw");
+		} catch (IOException e) {
+			deleteFile();
+			throw e;
+		}
+
+		this.channel = randomAccessFile.getChannel();
+	}
+
+	private void checkWrite() throws IOException {
+		RASPStreamOwner.check(owner);
+
+		if (closed) {
+			throw new IOException("RASPFileBuffer closed");
+		}
+	}
+
+	public void write(int b) throws IOException {
+		checkWrite();
+
+		if (writeCount == BUFFER_SIZE) {
+			flush();
+		}
+
+		writeBuffer[writeCount++] = (byte) b;
+	}
+
+	public void write(byte[] b, int off, int len) throws IOException {
+		checkWrite();
+
+		while (len > 0) {
+			if (writeCount == BUFFER_SIZE) {
+				flush();
+			}
+
+			int n = Math.min(len, BUFFER_SIZE - writeCount);
+
+			System.arraycopy(b, off, writeBuffer, writeCount, n);
+			writeCount += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * 将写缓冲区中的数据写入文件
+	 */
+	private void flush() throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(writeBuffer, 0, writeCount);
+
+		while (buffer.hasRemaining()) {
+			channel.write(buffer, fileSize + buffer.position());
+		}
+
+		fileSize += writeCount;
+		writeCount = 0;
+	}
+
+	/**
+	 * 读取指定位置的字节，数据在文件中时使用读缓冲区
+	 */
+	int read(int pos) throws IOException {
+		if (pos >= fileSize) {
+			return writeBuffer[pos - fileSize] & 0xff;
+		}
+
+		if (pos < readStart || pos >= readStart + readCount) {
+			if (readBuffer == null) {
+				readBuffer = new byte[BUFFER_SIZE];
+			}
+
+			int n = Math.min(BUFFER_SIZE, fileSize - pos);
+
+			readCount = 0;
+			readFile(pos, readBuffer, 0, n);
+			readStart = pos;
+			readCount = n;
+		}
+
+		return readBuffer[pos - readStart] & 0xff;
+	}
+
+	/**
+	 * 复制指定位置的字节到数组中
+	 */
+	void read(int pos, byte[] b, int off, int len) throws IOException {
+		if (pos < fileSize) {
+			int n = Math.min(len, fileSize - pos);
+
+			readFile(pos, b, off, n);
+			pos += n;
+			off += n;
+			len -= n;
+		}
+
+		if (len > 0) {
+			System.arraycopy(writeBuffer, pos - fileSize, b, off, len);
+		}
+	}
+
+	private void readFile(int pos, byte[] b, int off, int len) throws IOException {
+		if (closed) {
+			throw new IOException("RASPFileBuffer closed");
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, pos + buffer.position() - off) < 0) {
+				throw new IOException("RASPFileBuffer unexpected end of file");
+			}
+		}
+	}
+
+	public int size() {
+		return fileSize + writeCount;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * 关闭文件并删除临时文件，无法删除时在JVM退出时删除
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+
+		this.closed = true;
+		this.readBuffer = null;
+
+		closeQuietly(channel);
+		closeQuietly(randomAccessFile);
+		deleteFile();
+	}
+
+	private void deleteFile() {
+		if (file.exists() && !file.delete()) {
+			file.deleteOnExit();
+		}
+	}
+
+}
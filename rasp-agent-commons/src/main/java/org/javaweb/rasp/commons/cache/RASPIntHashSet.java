@@ -0,0 +1,249 @@
+package org.javaweb.rasp.commons.cache;
+
+import java.util.Arrays;
+
+/**
+ * int类型的开放寻址（线性探测）哈希集合，添加和查询时不会装箱，负载因子不超过0.5，容量不足时按2倍扩容。
+ * <p>
+ * 设置maxSize后为有界模式：元素数达到maxSize时按插入顺序淘汰最早添加的元素（FIFO），
+ * 淘汰时使用向后移动的方式删除，不会产生删除标记，扩容到maxSize对应的容量后不再分配内存。
+ * 有界模式下删除元素时同时从插入顺序队列中删除（需要遍历队列），删除不是有界模式的常用操作。
+ * <p>
+ * 该类不是线程安全的。
+ */
+public class RASPIntHashSet {
+
+	/**
+	 * 默认容量
+	 */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * clear时保留的最大容量，超过后重新分配默认容量的数组，避免复用时每次clear都需要清空大数组
+	 */
+	private static final int MAX_RETAINED_CAPACITY = 8192;
+
+	/**
+	 * 哈希表，0表示空位，元素0单独使用containsZero表示
+	 */
+	private int[] table;
+
+	private int size;
+
+	private boolean containsZero;
+
+	/**
+	 * 最大元素数，0表示不限制
+	 */
+	private final int maxSize;
+
+	/**
+	 * 有界模式下按插入顺序存放的元素（环形队列），用于淘汰最早添加的元素
+	 */
+	private int[] insertionOrder;
+
+	private int head;
+
+	public RASPIntHashSet() {
+		this(0);
+	}
+
+	/**
+	 * 创建哈希集合
+	 *
+	 * @param maxSize 最大元素数，0表示不限制
+	 */
+	public RASPIntHashSet(int maxSize) {
+		this.maxSize = Math.max(maxSize, 0);
+		this.table = new int[DEFAULT_CAPACITY];
+	}
+
+	public int size() {
+		return size + (containsZero ? 1 : 0);
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public boolean contains(int value) {
+		if (value == 0) {
+			return containsZero;
+		}
+
+		int[] tab  = table;
+		int   mask = tab.length - 1;
+
+		for (int i = mix(value) & mask; tab[i] != 0; i = (i + 1) & mask) {
+			if (tab[i] == value) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * 添加元素，有界模式下元素数达到maxSize时淘汰最早添加的元素
+	 *
+	 * @param value 元素
+	 * @return 元素不存在并添加成功时返回true
+	 */
+	public boolean add(int value) {
+		if (contains(value)) {
+			return false;
+		}
+
+		if (maxSize > 0 && size() >= maxSize) {
+			evict();
+		}
+
+		if (value == 0) {
+			containsZero = true;
+		} else {
+			if ((size + 1) * 2 > table.length) {
+				resize(table.length * 2);
+			}
+
+			insert(table, value);
+			size++;
+		}
+
+		if (maxSize > 0) {
+			if (insertionOrder == null) {
+				insertionOrder = new int[maxSize];
+			}
+
+			insertionOrder[(head + size() - 1) % maxSize] = value;
+		}
+
+		return true;
+	}
+
+	/**
+	 * 删除元素，有界模式下同时从插入顺序队列中删除，避免以后淘汰时删除重新添加的同一个元素
+	 *
+	 * @param value 元素
+	 * @return 元素存在并删除成功时返回true
+	 */
+	public boolean remove(int value) {
+		if (maxSize > 0 && insertionOrder != null && contains(value)) {
+			removeInsertionOrder(value);
+		}
+
+		return removeValue(value);
+	}
+
+	/**
+	 * 从插入顺序队列中删除元素，后面的元素依次向前移动，必须在从哈希表中删除元素之前调用
+	 */
+	private void removeInsertionOrder(int value) {
+		int count = size();
+		int k     = 0;
+
+		while (k < count && insertionOrder[(head + k) % maxSize] != value) {
+			k++;
+		}
+
+		for (; k < count - 1; k++) {
+			insertionOrder[(head + k) % maxSize] = insertionOrder[(head + k + 1) % maxSize];
+		}
+	}
+
+	public void clear() {
+		if (table.length > MAX_RETAINED_CAPACITY) {
+			table = new int[DEFAULT_CAPACITY];
+		} else if (size > 0) {
+			Arrays.fill(table, 0);
+		}
+
+		size = 0;
+		head = 0;
+		containsZero = false;
+	}
+
+	/**
+	 * 淘汰最早添加的元素
+	 */
+	private void evict() {
+		int oldest = insertionOrder[head];
+		head = (head + 1) % maxSize;
+
+		removeValue(oldest);
+	}
+
+	private boolean removeValue(int value) {
+		if (value == 0) {
+			boolean contained = containsZero;
+			containsZero = false;
+
+			return contained;
+		}
+
+		int[] tab  = table;
+		int   mask = tab.length - 1;
+		int   i    = mix(value) & mask;
+
+		while (tab[i] != value) {
+			if (tab[i] == 0) {
+				return false;
+			}
+
+			i = (i + 1) & mask;
+		}
+
+		// 向后移动删除：将后续探测链上的元素移动到空位，保证查找时不会提前遇到空位
+		for (int j = (i + 1) & mask; tab[j] != 0; j = (j + 1) & mask) {
+			int home = mix(tab[j]) & mask;
+
+			// home不在(i, j]区间内时，元素可以移动到位置i
+			if (((j - home) & mask) >= ((j - i) & mask)) {
+				tab[i] = tab[j];
+				i = j;
+			}
+		}
+
+		tab[i] = 0;
+		size--;
+
+		return true;
+	}
+
+	private void resize(int capacity) {
+		int[] oldTable = table;
+		int[] newTable = new int[capacity];
+
+		for (int value : oldTable) {
+			if (value != 0) {
+				insert(newTable, value);
+			}
+		}
+
+		this.table = newTable;
+	}
+
+	private static void insert(int[] tab, int value) {
+		int mask = tab.length - 1;
+		int i    = mix(value) & mask;
+
+		while (tab[i] != 0) {
+			i = (i + 1) & mask;
+		}
+
+		tab[i] = value;
+	}
+
+	/**
+	 * 打散hash值，SQL语句的hashCode低位分布不均匀
+	 */
+	private static int mix(int hash) {
+		int h = hash * 0x9E3779B9;
+
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -1,6 +1,8 @@
 package org.javaweb.rasp.commons.cache;
 
 import org.javaweb.rasp.commons.RASPSerialization;
+import org.javaweb.rasp.commons.RASPStreamingInspector;
+import org.javaweb.rasp.commons.RASPStreamingSerialization;
 import org.javaweb.rasp.commons.context.RASPServletRequestContext;
 
 import java.io.IOException;
@@ -8,6 +10,8 @@ import java.io.OutputStream;
 import java.rasp.proxy.loader.HookResult;
 
 import static java.rasp.proxy.loader.HookResultType.THROW;
+import static org.javaweb.rasp.commons.config.RASPConfiguration.RASP_TMP_DIRECTORY;
+import static org.javaweb.rasp.commons.log.RASPLogger.errorLog;
 import static org.javaweb.rasp.commons.utils.EncryptUtils.base64Encode;
 import static org.javaweb.rasp.commons.utils.IOUtils.covertGZipBytes;
 import static org.javaweb.rasp.commons.utils.IOUtils.toByteArray;
@@ -38,10 +42,57 @@ public class RASPOutputStreamCache extends OutputStream {
 	 */
 	private static final int DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
 
-	private final RASPByteArrayOutputStream cachedStream = new RASPByteArrayOutputStream();
+	/**
+	 * 缓存流，使用内存块池中的固定大小内存块存放数据，调用release后归还内存块
+	 */
+	private final RASPChunkedOutputStream cachedStream = new RASPChunkedOutputStream();
+
+	/**
+	 * 内存中缓存的最大字节数（servlet_stream_memory_cache_size），超过后写入临时文件，0表示只使用内存缓存
+	 */
+	private final int memoryCacheSize;
+
+	/**
+	 * 超过内存缓存大小后写入的临时文件，第一次超过时创建，调用release后删除
+	 */
+	private RASPFileBuffer fileBuffer;
+
+	/**
+	 * 临时文件创建或写入失败，失败后不再缓存后续数据
+	 */
+	private boolean spillFailed;
+
+	/**
+	 * 请求体大小（Content-Length），-1表示未知
+	 */
+	private final int contentLength;
+
+	/**
+	 * 是否使用增量反序列化检测（serialization实现了RASPStreamingSerialization并创建了增量检测对象），
+	 * 增量检测出错后改为使用缓存的数据反序列化
+	 */
+	private boolean streaming;
+
+	/**
+	 * 增量反序列化检测对象，检测完成或检测到攻击后为null
+	 */
+	private RASPStreamingInspector inspector;
+
+	/**
+	 * 已增量检测的字节数
+	 */
+	private int inspectedSize;
+
+	/**
+	 * write(int)增量检测使用的单字节缓冲区
+	 */
+	private final byte[] singleByte = new byte[1];
 
 	public RASPOutputStreamCache(RASPServletRequestContext context) {
 		this.serialization = null;
+		this.contentLength = -1;
+		this.streaming = false;
+		this.memoryCacheSize = getMemoryCacheSize(context);
 		int maxCacheSize = context.getMaxStreamCacheSize();
 
 		if (maxCacheSize > 0 && maxCacheSize < DEFAULT_MAX_SIZE) {
@@ -59,14 +110,28 @@ public class RASPOutputStreamCache extends OutputStream {
 	 */
 	public RASPOutputStreamCache(RASPServletRequestContext context, RASPSerialization serialization) {
 		this.context = context;
-		int contentLength = context.getContentLength();
-		int maxCacheSize  = context.getMaxStreamCacheSize();
+		this.memoryCacheSize = getMemoryCacheSize(context);
+		this.contentLength = context.getContentLength();
+		int maxCacheSize = context.getMaxStreamCacheSize();
 
 		// 只有API请求时才需要反序列化
 		if (context.isWebApiRequest()) {
 			this.serialization = serialization;
+
+			if (serialization instanceof RASPStreamingSerialization) {
+				this.inspector = ((RASPStreamingSerialization) serialization).createInspector(context);
+			}
+
+			this.streaming = inspector != null;
+
+			// 增量检测不需要缓存完整的请求体，缓存字节数和非API请求一样不超过配置的最大缓存值
+			if (streaming && (contentLength == -1 || contentLength > DEFAULT_MAX_SIZE)) {
+				this.maxCacheSize = maxCacheSize * 1024 * 1024;
+				return;
+			}
 		} else {
 			this.serialization = null;
+			this.streaming = false;
 
 			// 非API请求必须限制缓存流字节数，缓存字节数最大值那么必须大于0，小于10M
 			if (contentLength == -1 || contentLength > DEFAULT_MAX_SIZE) {
@@ -78,36 +143,222 @@ public class RASPOutputStreamCache extends OutputStream {
 		this.maxCacheSize = contentLength;
 	}
 
+	private static int getMemoryCacheSize(RASPServletRequestContext context) {
+		return context.getAppProperties().getServletStreamMemoryCacheSize() * 1024;
+	}
+
 	/**
-	 * 获取缓存输入流
+	 * 获取缓存输入流，缓存数据写入了临时文件时先读取内存中的数据再读取临时文件中的数据
 	 *
 	 * @return 缓存输入流
 	 */
 	public RASPByteArrayInputStream getInputStream() {
+		if (fileBuffer != null) {
+			return new RASPChunkedInputStream(cachedStream, cachedStream.size(), fileBuffer, fileBuffer.size());
+		}
+
 		return cachedStream.toRASPByteArrayInputStream();
 	}
 
+	/**
+	 * 获取下一个字节需要写入的临时文件，没有超过内存缓存大小时返回null
+	 */
+	private RASPFileBuffer spillBuffer() {
+		if (memoryCacheSize <= 0 || cachedBufferSize < memoryCacheSize) {
+			return null;
+		}
+
+		if (fileBuffer == null) {
+			try {
+				fileBuffer = new RASPFileBuffer(RASP_TMP_DIRECTORY);
+			} catch (IOException e) {
+				spillFailed = true;
+				errorLog("创建RASP流缓存临时文件失败：", e);
+			}
+		}
+
+		return fileBuffer;
+	}
+
+	/**
+	 * 写入临时文件，写入失败时记录错误日志并停止缓存，不影响应用读写Servlet流
+	 */
+	private boolean spill(RASPFileBuffer buffer, byte[] b, int off, int len) {
+		try {
+			buffer.write(b, off, len);
+			return true;
+		} catch (IOException e) {
+			spillFailed = true;
+			errorLog("写入RASP流缓存临时文件失败：", e);
+			return false;
+		}
+	}
+
 	@Override
 	public void write(int b) throws IOException {
-		// 检测当前缓存的byte是否已经超过最大的缓存值
-		if (maxCacheSize > 0 && cachedBufferSize > maxCacheSize) {
+		cache(b);
+
+		// 先缓存再增量检测，增量检测结束或出错时缓存中已经包含当前写入的字节
+		if (inspector != null) {
+			singleByte[0] = (byte) b;
+			inspect(singleByte, 0, 1);
+		}
+
+		checkCompleted();
+	}
+
+	private void cache(int b) {
+		// 检测当前缓存的byte是否已经达到最大的缓存值
+		if ((maxCacheSize > 0 && cachedBufferSize >= maxCacheSize) || spillFailed) {
 			return;
 		}
 
-		cachedStream.write(b);
+		RASPFileBuffer buffer = spillBuffer();
+
+		if (buffer == null) {
+			if (spillFailed) {
+				return;
+			}
+
+			cachedStream.write(b);
+		} else {
+			try {
+				buffer.write(b);
+			} catch (IOException e) {
+				spillFailed = true;
+				errorLog("写入RASP流缓存临时文件失败：", e);
+				return;
+			}
+		}
+
 		cachedBufferSize++;
+	}
+
+	/**
+	 * 批量写入缓存流，超过最大缓存值的部分不缓存，缓存字节数正好达到最大缓存值时反序列化，
+	 * 使用增量检测时所有写入的字节（包括超过最大缓存值的部分）都会被检测
+	 *
+	 * @param b   字节数组
+	 * @param off 开始位置
+	 * @param len 字节数
+	 * @throws IOException 检测到攻击时抛出异常
+	 */
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if ((off < 0) || (off > b.length) || (len < 0) || ((off + len) - b.length > 0)) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		cache(b, off, len);
+
+		// 先缓存再增量检测，增量检测结束或出错时缓存中已经包含当前写入的字节
+		if (inspector != null && len > 0) {
+			inspect(b, off, len);
+		}
+
+		checkCompleted();
+	}
+
+	private void cache(byte[] b, int off, int len) {
+		if (spillFailed) {
+			return;
+		}
+
+		if (maxCacheSize > 0) {
+			int remaining = maxCacheSize - cachedBufferSize;
+
+			if (remaining <= 0) {
+				return;
+			}
+
+			if (len > remaining) {
+				len = remaining;
+			}
+		}
+
+		if (len == 0) {
+			return;
+		}
+
+		// 内存缓存大小以内的数据写入内存块，超过的部分写入临时文件
+		if (memoryCacheSize <= 0 || cachedBufferSize < memoryCacheSize) {
+			int n = memoryCacheSize <= 0 ? len : Math.min(len, memoryCacheSize - cachedBufferSize);
+
+			cachedStream.write(b, off, n);
+			cachedBufferSize += n;
+			off += n;
+			len -= n;
+		}
+
+		if (len > 0) {
+			RASPFileBuffer buffer = spillBuffer();
+
+			if (buffer != null && spill(buffer, b, off, len)) {
+				cachedBufferSize += len;
+			}
+		}
+	}
 
-		// 检测缓存流是否达到了最大值
-		if (cachedBufferSize == maxCacheSize) {
+	/**
+	 * 检测缓存流是否达到了最大值，增量检测在请求体写入完成时结束
+	 */
+	private void checkCompleted() throws IOException {
+		if (cachedBufferSize == maxCacheSize && !streaming) {
 			completed();
 		}
 	}
 
+	/**
+	 * 增量检测新写入的字节，检测到攻击时停止检测，请求体写入完成（达到Content-Length）时结束检测
+	 */
+	private void inspect(byte[] b, int off, int len) throws IOException {
+		HookResult<?> result;
+
+		try {
+			result = inspector.inspect(b, off, len);
+		} catch (RuntimeException e) {
+			disableInspector(e);
+			return;
+		}
+
+		inspectedSize += len;
+
+		if (result != null && result.getRASPHookResultType() == THROW) {
+			this.inspector = null;
+			this.deserialized = true;
+
+			checkResult(result);
+		} else if (contentLength > 0 && inspectedSize >= contentLength) {
+			completed();
+		}
+	}
+
+	/**
+	 * 增量检测出错时停止增量检测，改为在缓存完成时使用缓存的数据反序列化，不影响应用读写Servlet流
+	 */
+	private void disableInspector(RuntimeException e) {
+		this.inspector = null;
+		this.streaming = false;
+
+		errorLog("RASP增量反序列化检测异常，改为使用缓存的数据反序列化：", e);
+	}
+
 	@Override
 	public void close() throws IOException {
 		completed();
 	}
 
+	/**
+	 * 释放缓存流，将内存块归还到内存块池并删除临时文件，释放后不能再读取缓存的数据
+	 */
+	public void release() {
+		cachedStream.close();
+
+		if (fileBuffer != null) {
+			fileBuffer.close();
+		}
+	}
+
 	public byte[] toBytes() {
 		try {
 			if (this.getInputStream() != null) {
@@ -142,8 +393,27 @@ public class RASPOutputStreamCache extends OutputStream {
 		// 修改序列化状态为true
 		deserialized = true;
 
-		HookResult<?> result = serialization.deserialization(context, getInputStream());
+		HookResult<?> result;
+
+		if (streaming) {
+			// 增量检测只需要检测未完成的数据
+			RASPStreamingInspector current = inspector;
+			this.inspector = null;
+
+			try {
+				result = current != null ? current.finish() : null;
+			} catch (RuntimeException e) {
+				disableInspector(e);
+				result = serialization.deserialization(context, getInputStream());
+			}
+		} else {
+			result = serialization.deserialization(context, getInputStream());
+		}
+
+		checkResult(result);
+	}
 
+	private void checkResult(HookResult<?> result) throws IOException {
 		// 检测到有攻击且非静默模式需要抛出异常阻断程序逻辑
 		if (result != null && result.getRASPHookResultType() == THROW && !context.isSilent()) {
 			throw new IOException(result.getException().getMessage());
@@ -0,0 +1,253 @@
+package org.javaweb.rasp.commons.cache;
+
+import java.util.Arrays;
+
+/**
+ * 请求参数值索引，将所有请求参数的参数值（忽略null和空字符串）展开存放在一维数组中，同时存放参数值的hash和长度，
+ * 并使用开放寻址（线性探测）的hash表索引参数值，防御模块可以直接查询"是否有参数值等于X"或"是否有参数值包含X"，
+ * 不需要遍历所有参数和参数值。
+ * <p>
+ * 索引由{@link RASPParameterSet#getParameterIndex()}在第一次使用时创建，之后缓存的参数会追加到索引中。该类不是线程安全的。
+ */
+public class RASPParameterIndex {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/**
+	 * 参数值所属的请求参数
+	 */
+	private RASPCachedParameter[] parameters = new RASPCachedParameter[DEFAULT_CAPACITY];
+
+	/**
+	 * 参数值
+	 */
+	private String[] values = new String[DEFAULT_CAPACITY];
+
+	/**
+	 * 参数值的hash
+	 */
+	private int[] hashes = new int[DEFAULT_CAPACITY];
+
+	/**
+	 * 参数值的长度
+	 */
+	private int[] lengths = new int[DEFAULT_CAPACITY];
+
+	/**
+	 * 参数值hash表，存放参数值下标 + 1，0表示空位
+	 */
+	private int[] table = new int[DEFAULT_CAPACITY * 2];
+
+	/**
+	 * 参数值数
+	 */
+	private int size;
+
+	/**
+	 * 最短和最长的参数值长度，用于快速排除不可能匹配的查询
+	 */
+	private int minLength = Integer.MAX_VALUE;
+
+	private int maxLength;
+
+	/**
+	 * 索引的修改次数，添加或清空参数值时递增，用于判断使用索引创建的自动机是否需要重新创建
+	 */
+	private int modCount;
+
+	/**
+	 * 添加请求参数的所有参数值
+	 *
+	 * @param parameter 请求参数
+	 */
+	public void add(RASPCachedParameter parameter) {
+		modCount++;
+
+		for (String value : parameter.getValue()) {
+			if (value == null || value.length() == 0) {
+				continue;
+			}
+
+			if (size == values.length) {
+				grow();
+			}
+
+			int hash   = value.hashCode();
+			int length = value.length();
+
+			parameters[size] = parameter;
+			values[size] = value;
+			hashes[size] = hash;
+			lengths[size] = length;
+
+			insert(table, hash, size);
+			size++;
+
+			if (length < minLength) {
+				minLength = length;
+			}
+
+			if (length > maxLength) {
+				maxLength = length;
+			}
+		}
+	}
+
+	/**
+	 * 获取参数值数
+	 *
+	 * @return 参数值数
+	 */
+	public int size() {
+		return size;
+	}
+
+	public String getValue(int index) {
+		return values[index];
+	}
+
+	public int getValueLength(int index) {
+		return lengths[index];
+	}
+
+	/**
+	 * 获取参数值所属的请求参数
+	 *
+	 * @param index 参数值下标
+	 * @return 请求参数
+	 */
+	public RASPCachedParameter getParameter(int index) {
+		return parameters[index];
+	}
+
+	/**
+	 * 查找与value相等的参数值
+	 *
+	 * @param value 待查找的值
+	 * @return 第一个相等的参数值下标，不存在时返回-1
+	 */
+	public int indexOfValue(String value) {
+		if (value == null || size == 0) {
+			return -1;
+		}
+
+		int length = value.length();
+
+		if (length < minLength || length > maxLength) {
+			return -1;
+		}
+
+		int   hash  = value.hashCode();
+		int[] tab   = table;
+		int   mask  = tab.length - 1;
+		int   found = -1;
+
+		for (int i = mix(hash) & mask; tab[i] != 0; i = (i + 1) & mask) {
+			int index = tab[i] - 1;
+
+			if (hashes[index] == hash && lengths[index] == length && values[index].equals(value)) {
+				// 多个参数值相等时返回最先添加的参数值
+				if (found < 0 || index < found) {
+					found = index;
+				}
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * 检测是否有参数值与value相等
+	 *
+	 * @param value 待查找的值
+	 * @return 是否存在
+	 */
+	public boolean containsValue(String value) {
+		return indexOfValue(value) >= 0;
+	}
+
+	/**
+	 * 查找包含str的参数值
+	 *
+	 * @param str 待查找的字符串
+	 * @return 第一个包含str的参数值下标，不存在时返回-1
+	 */
+	public int indexOfValueContaining(String str) {
+		if (str == null) {
+			return -1;
+		}
+
+		int length = str.length();
+
+		if (length > maxLength) {
+			return -1;
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (lengths[i] >= length && values[i].contains(str)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * 清空索引
+	 */
+	public void clear() {
+		Arrays.fill(parameters, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		Arrays.fill(table, 0);
+
+		size = 0;
+		minLength = Integer.MAX_VALUE;
+		maxLength = 0;
+		modCount++;
+	}
+
+	/**
+	 * 获取索引的修改次数
+	 *
+	 * @return 修改次数
+	 */
+	int getModCount() {
+		return modCount;
+	}
+
+	private void grow() {
+		int capacity = values.length * 2;
+
+		this.parameters = Arrays.copyOf(parameters, capacity);
+		this.values = Arrays.copyOf(values, capacity);
+		this.hashes = Arrays.copyOf(hashes, capacity);
+		this.lengths = Arrays.copyOf(lengths, capacity);
+
+		// hash表容量保持为参数值容量的2倍，负载因子不超过0.5
+		int[] newTable = new int[capacity * 2];
+
+		for (int i = 0; i < size; i++) {
+			insert(newTable, hashes[i], i);
+		}
+
+		this.table = newTable;
+	}
+
+	private static void insert(int[] tab, int hash, int index) {
+		int mask = tab.length - 1;
+		int i    = mix(hash) & mask;
+
+		while (tab[i] != 0) {
+			i = (i + 1) & mask;
+		}
+
+		tab[i] = index + 1;
+	}
+
+	private static int mix(int hash) {
+		int h = hash * 0x9E3779B9;
+
+		return h ^ (h >>> 16);
+	}
+
+}
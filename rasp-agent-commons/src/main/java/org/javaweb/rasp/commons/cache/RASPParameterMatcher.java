@@ -0,0 +1,313 @@
+package org.javaweb.rasp.commons.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 使用请求参数值创建的Aho-Corasick多模式匹配自动机，查找待检测字符串中出现的所有请求参数值，
+ * 查找耗时只与待检测字符串的长度（和匹配数）相关，与请求参数的数量无关。
+ * <p>
+ * 长度小于{@link #MIN_VALUE_LENGTH}的参数值几乎会出现在任何字符串中，不参与匹配。
+ * 自动机由{@link RASPRequestCached#getParameterMatcher()}在第一次使用时创建并缓存，创建后不再修改。
+ */
+public class RASPParameterMatcher {
+
+	/**
+	 * 参与匹配的参数值最小长度
+	 */
+	public static final int MIN_VALUE_LENGTH = 2;
+
+	private final RASPParameterIndex parameterIndex;
+
+	/**
+	 * 创建自动机时索引中的参数值数
+	 */
+	private final int indexSize;
+
+	/**
+	 * 创建自动机时索引的修改次数，用于判断自动机是否需要重新创建
+	 */
+	private final int indexModCount;
+
+	/**
+	 * 状态转移表，key为：(状态 << 16) | 字符，value为：下一个状态，0表示空位（根状态不会是任何状态的下一个状态）
+	 */
+	private final long[] transitionKeys;
+
+	private final int[] transitionValues;
+
+	private final int transitionMask;
+
+	/**
+	 * 根状态的ASCII字符转移表，待检测字符串中的大部分字符都在根状态处理，不需要查找状态转移表
+	 */
+	private final int[] rootTransitions = new int[128];
+
+	/**
+	 * 失败指针
+	 */
+	private final int[] fail;
+
+	/**
+	 * 以当前状态结尾的参数值下标，-1表示没有
+	 */
+	private final int[] output;
+
+	/**
+	 * 沿失败指针找到的下一个有输出的状态，0表示没有
+	 */
+	private final int[] dictionaryLink;
+
+	/**
+	 * 与当前参数值相等的下一个参数值下标（多个请求参数可能有相同的参数值），-1表示没有
+	 */
+	private final int[] sameValueNext;
+
+	private final int stateCount;
+
+	public RASPParameterMatcher(RASPParameterIndex parameterIndex) {
+		this.parameterIndex = parameterIndex;
+		this.indexSize = parameterIndex.size();
+		this.indexModCount = parameterIndex.getModCount();
+
+		int maxStates = 1;
+
+		for (int i = 0; i < indexSize; i++) {
+			if (parameterIndex.getValueLength(i) >= MIN_VALUE_LENGTH) {
+				maxStates += parameterIndex.getValueLength(i);
+			}
+		}
+
+		int capacity = 16;
+
+		while (capacity < maxStates * 2) {
+			capacity <<= 1;
+		}
+
+		this.transitionKeys = new long[capacity];
+		this.transitionValues = new int[capacity];
+		this.transitionMask = capacity - 1;
+
+		int[] stateOutput = new int[maxStates];
+		int[] firstChild  = new int[maxStates];
+		int[] nextSibling = new int[maxStates];
+		int[] stateChar   = new int[maxStates];
+		int[] valueNext   = new int[indexSize];
+		int   states      = 1;
+
+		Arrays.fill(stateOutput, -1);
+		Arrays.fill(valueNext, -1);
+
+		// 创建前缀树
+		for (int i = 0; i < indexSize; i++) {
+			if (parameterIndex.getValueLength(i) < MIN_VALUE_LENGTH) {
+				continue;
+			}
+
+			String value = parameterIndex.getValue(i);
+			int    state = 0;
+
+			for (int j = 0; j < value.length(); j++) {
+				char c    = value.charAt(j);
+				int  next = transition(state, c);
+
+				if (next == 0) {
+					next = states++;
+					putTransition(state, c, next);
+
+					if (state == 0 && c < 128) {
+						rootTransitions[c] = next;
+					}
+
+					stateChar[next] = c;
+					nextSibling[next] = firstChild[state];
+					firstChild[state] = next;
+				}
+
+				state = next;
+			}
+
+			// 相同的参数值使用链表连接，输出时按添加顺序输出
+			if (stateOutput[state] < 0) {
+				stateOutput[state] = i;
+			} else {
+				int last = stateOutput[state];
+
+				while (valueNext[last] >= 0) {
+					last = valueNext[last];
+				}
+
+				valueNext[last] = i;
+			}
+		}
+
+		this.stateCount = states;
+		this.output = stateOutput;
+		this.sameValueNext = valueNext;
+		this.fail = new int[states];
+		this.dictionaryLink = new int[states];
+
+		// 按广度优先计算失败指针和输出链接
+		int[] queue = new int[states];
+		int   head  = 0;
+		int   tail  = 0;
+
+		for (int child = firstChild[0]; child != 0; child = nextSibling[child]) {
+			queue[tail++] = child;
+		}
+
+		while (head < tail) {
+			int state = queue[head++];
+
+			for (int child = firstChild[state]; child != 0; child = nextSibling[child]) {
+				char c = (char) stateChar[child];
+				int  f = fail[state];
+
+				while (f != 0 && transition(f, c) == 0) {
+					f = fail[f];
+				}
+
+				int target = transition(f, c);
+
+				fail[child] = target != child ? target : 0;
+				dictionaryLink[child] = output[fail[child]] >= 0 ? fail[child] : dictionaryLink[fail[child]];
+				queue[tail++] = child;
+			}
+		}
+	}
+
+	/**
+	 * 自动机是否是使用当前的参数值索引创建的
+	 *
+	 * @param index 参数值索引
+	 * @return 索引未修改时返回true
+	 */
+	boolean isCurrent(RASPParameterIndex index) {
+		return parameterIndex == index && indexModCount == index.getModCount();
+	}
+
+	/**
+	 * 获取自动机的状态数
+	 *
+	 * @return 状态数
+	 */
+	public int getStateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * 检测待检测字符串中是否出现了任意请求参数值
+	 *
+	 * @param sink 待检测字符串
+	 * @return 是否出现
+	 */
+	public boolean containsParameter(CharSequence sink) {
+		if (sink == null || stateCount == 1) {
+			return false;
+		}
+
+		int state = 0;
+
+		for (int i = 0, len = sink.length(); i < len; i++) {
+			state = next(state, sink.charAt(i));
+
+			if (output[state] >= 0 || dictionaryLink[state] != 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * 查找待检测字符串中出现的所有请求参数值，没有匹配时不会创建任何对象
+	 *
+	 * @param sink 待检测字符串
+	 * @return 按结束位置排序的参数值出现位置，没有匹配时返回空列表
+	 */
+	public List<RASPParameterOccurrence> findParameterOccurrences(CharSequence sink) {
+		if (sink == null || stateCount == 1) {
+			return Collections.emptyList();
+		}
+
+		List<RASPParameterOccurrence> occurrences = null;
+
+		int state = 0;
+
+		for (int i = 0, len = sink.length(); i < len; i++) {
+			state = next(state, sink.charAt(i));
+
+			for (int s = output[state] >= 0 ? state : dictionaryLink[state]; s != 0; s = dictionaryLink[s]) {
+				for (int index = output[s]; index >= 0; index = sameValueNext[index]) {
+					if (occurrences == null) {
+						occurrences = new ArrayList<RASPParameterOccurrence>();
+					}
+
+					int length = parameterIndex.getValueLength(index);
+
+					occurrences.add(new RASPParameterOccurrence(
+							parameterIndex.getParameter(index), parameterIndex.getValue(index), i + 1 - length, i + 1
+					));
+				}
+			}
+		}
+
+		if (occurrences == null) {
+			return Collections.emptyList();
+		}
+
+		return occurrences;
+	}
+
+	private int next(int state, char c) {
+		if (state == 0 && c < 128) {
+			return rootTransitions[c];
+		}
+
+		int target;
+
+		while ((target = transition(state, c)) == 0 && state != 0) {
+			state = fail[state];
+
+			if (state == 0 && c < 128) {
+				return rootTransitions[c];
+			}
+		}
+
+		return target;
+	}
+
+	private int transition(int state, char c) {
+		long key = ((long) state << 16) | c;
+		int  i   = mix(key) & transitionMask;
+
+		for (int value; (value = transitionValues[i]) != 0; i = (i + 1) & transitionMask) {
+			if (transitionKeys[i] == key) {
+				return value;
+			}
+		}
+
+		return 0;
+	}
+
+	private void putTransition(int state, char c, int target) {
+		long key = ((long) state << 16) | c;
+		int  i   = mix(key) & transitionMask;
+
+		while (transitionValues[i] != 0) {
+			i = (i + 1) & transitionMask;
+		}
+
+		transitionKeys[i] = key;
+		transitionValues[i] = target;
+	}
+
+	private static int mix(long key) {
+		int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,357 @@
+package org.javaweb.rasp.commons.cache;
+
+import static org.javaweb.rasp.commons.utils.StringUtils.toLowerCase;
+import static org.javaweb.rasp.commons.utils.URLUtils.urlNormalize;
+
+/**
+ * 请求参数值标准化，为{@link RASPCachedParameter}计算参数值的小写、解码和路径标准化视图，每个视图单独计算。
+ * <p>
+ * 计算视图前先扫描一次参数值，记录是否包含大写字母、转义字符（'%'、'\'）和路径字符（'/'、'\'、'.'），
+ * 不需要转换的视图直接返回原字符串，只有需要转换时才使用char[]创建新字符串。
+ */
+public final class RASPParameterNormalizer {
+
+	/**
+	 * 参数值包含ASCII大写字母
+	 */
+	static final int UPPER_CASE = 1;
+
+	/**
+	 * 参数值包含'%'
+	 */
+	static final int URL_ENCODED = 2;
+
+	/**
+	 * 参数值包含'\'
+	 */
+	static final int BACKSLASH = 4;
+
+	/**
+	 * 参数值包含'/'、'\'或'.'
+	 */
+	static final int PATH = 8;
+
+	/**
+	 * 最大解码次数，防御多重编码（如：%252e%252e%252f）
+	 */
+	private static final int MAX_DECODE_ROUNDS = 3;
+
+	private RASPParameterNormalizer() {
+	}
+
+	/**
+	 * 扫描参数值需要的转换
+	 *
+	 * @param value 参数值
+	 * @return 转换标识（UPPER_CASE、URL_ENCODED、BACKSLASH、PATH的组合），0表示不需要任何转换
+	 */
+	static int scan(String value) {
+		int flags = 0;
+
+		for (int i = 0, len = value.length(); i < len; i++) {
+			char c = value.charAt(i);
+
+			if (c >= 'A' && c <= 'Z') {
+				flags |= UPPER_CASE;
+			} else if (c == '%') {
+				flags |= URL_ENCODED;
+			} else if (c == '\\') {
+				flags |= BACKSLASH | PATH;
+			} else if (c == '/' || c == '.') {
+				flags |= PATH;
+			}
+		}
+
+		return flags;
+	}
+
+	/**
+	 * 计算参数值的小写视图，只扫描大写字母后转换，不做解码
+	 *
+	 * @param value 参数值
+	 * @return 小写的参数值，不需要转换时返回原字符串
+	 */
+	static String lowerCase(String value) {
+		return value != null && (scan(value) & UPPER_CASE) != 0 ? toLowerCase(value) : value;
+	}
+
+	/**
+	 * 计算参数值的解码视图（URL解码、Unicode和八进制反转义）
+	 *
+	 * @param value 参数值
+	 * @return 解码后的参数值，不需要解码时返回原字符串
+	 */
+	static String decoded(String value) {
+		if (value == null) {
+			return null;
+		}
+
+		int flags = scan(value);
+
+		if ((flags & BACKSLASH) != 0) {
+			return decode(value, true);
+		}
+
+		if ((flags & URL_ENCODED) == 0) {
+			return value;
+		}
+
+		String urlDecoded = decode(value, false);
+
+		// URL解码后可能出现新的转义字符（如：%5cu002e）
+		if (urlDecoded != value && (scan(urlDecoded) & BACKSLASH) != 0) {
+			return decode(value, true);
+		}
+
+		return urlDecoded;
+	}
+
+	/**
+	 * 计算参数值的路径标准化视图，只做URL解码，不做'\'反转义，避免Windows路径（如：C:\123）中的'\'被当作八进制转义
+	 *
+	 * @param value 参数值
+	 * @return 路径标准化后的参数值，不需要标准化时返回原字符串
+	 */
+	static String normalizedPath(String value) {
+		if (value == null) {
+			return null;
+		}
+
+		int    flags      = scan(value);
+		String urlDecoded = value;
+
+		if ((flags & URL_ENCODED) != 0) {
+			urlDecoded = decode(value, false);
+
+			// URL解码后可能出现新的路径字符（如：%2e%2e%2f）
+			if (urlDecoded != value) {
+				flags |= scan(urlDecoded) & PATH;
+			}
+		}
+
+		return (flags & PATH) != 0 ? urlNormalize(urlDecoded) : urlDecoded;
+	}
+
+	/**
+	 * 参数值解码：URL解码（%XX，按UTF-8解码多字节字符；%uXXXX）、Unicode反转义（\\uXXXX）和八进制反转义（\\ooo），
+	 * 最多重复解码{@link #MAX_DECODE_ROUNDS}次，无法解码的转义序列保持不变
+	 *
+	 * @param value 参数值
+	 * @return 解码后的字符串，不需要解码时返回原字符串
+	 */
+	public static String decode(String value) {
+		return decode(value, true);
+	}
+
+	/**
+	 * 参数值解码
+	 *
+	 * @param value    参数值
+	 * @param unescape 是否做Unicode和八进制反转义，false时只做URL解码
+	 * @return 解码后的字符串，不需要解码时返回原字符串
+	 */
+	static String decode(String value, boolean unescape) {
+		if (value == null) {
+			return null;
+		}
+
+		String str = value;
+
+		for (int i = 0; i < MAX_DECODE_ROUNDS; i++) {
+			String decoded = decodeOnce(str, unescape);
+
+			if (decoded == str) {
+				break;
+			}
+
+			str = decoded;
+		}
+
+		return str;
+	}
+
+	private static String decodeOnce(String str, boolean unescape) {
+		int    len   = str.length();
+		char[] out   = null;
+		int    count = 0;
+
+		for (int i = 0; i < len; ) {
+			char c        = str.charAt(i);
+			int  consumed = 0;
+			int  chr      = -1;
+
+			if (c == '%') {
+				if (i + 5 < len && (str.charAt(i + 1) == 'u' || str.charAt(i + 1) == 'U')) {
+					// %uXXXX
+					chr = hex4(str, i + 2);
+					consumed = chr >= 0 ? 6 : 0;
+				}
+
+				if (consumed == 0) {
+					int b0 = hex2(str, i + 1);
+
+					if (b0 >= 0) {
+						consumed = utf8Length(str, i, b0);
+
+						if (consumed > 0) {
+							chr = utf8CodePoint(str, i, b0, consumed / 3);
+						}
+					}
+				}
+			} else if (unescape && c == '\\' && i + 1 < len) {
+				char next = str.charAt(i + 1);
+
+				if (next == 'u') {
+					// \\uXXXX，与UnicodeUnescaper一致：允许多个'u'和一个可选的'+'
+					int p = i + 2;
+
+					while (p < len && str.charAt(p) == 'u') {
+						p++;
+					}
+
+					if (p < len && str.charAt(p) == '+') {
+						p++;
+					}
+
+					chr = hex4(str, p);
+					consumed = chr >= 0 ? p + 4 - i : 0;
+				} else if (next >= '0' && next <= '7') {
+					// \\ooo，与OctalUnescaper一致：首位为0-3时最多3位，否则最多2位
+					int p = i + 1;
+					int v = 0;
+					int max = next <= '3' ? 3 : 2;
+
+					while (p < len && p - i - 1 < max && str.charAt(p) >= '0' && str.charAt(p) <= '7') {
+						v = v * 8 + str.charAt(p++) - '0';
+					}
+
+					chr = v;
+					consumed = p - i;
+				}
+			}
+
+			if (consumed == 0) {
+				if (out != null) {
+					out[count] = c;
+				}
+
+				count++;
+				i++;
+				continue;
+			}
+
+			if (out == null) {
+				// 第一次需要解码时才创建char[]，解码后的长度不会超过原长度
+				out = new char[len];
+				str.getChars(0, i, out, 0);
+			}
+
+			count += Character.toChars(chr, out, count);
+			i += consumed;
+		}
+
+		return out != null ? new String(out, 0, count) : str;
+	}
+
+	/**
+	 * 计算从pos开始的%XX序列组成的UTF-8字符长度
+	 *
+	 * @return 消耗的字符数（3的倍数），UTF-8序列不合法时返回3（只解码第一个字节为ISO-8859-1字符），不是%XX时返回0
+	 */
+	private static int utf8Length(String str, int pos, int b0) {
+		int n;
+
+		if (b0 < 0x80) {
+			return 3;
+		} else if (b0 >= 0xC2 && b0 <= 0xDF) {
+			n = 2;
+		} else if (b0 >= 0xE0 && b0 <= 0xEF) {
+			n = 3;
+		} else if (b0 >= 0xF0 && b0 <= 0xF4) {
+			n = 4;
+		} else {
+			return 3;
+		}
+
+		for (int k = 1; k < n; k++) {
+			int p = pos + k * 3;
+
+			if (p >= str.length() || str.charAt(p) != '%') {
+				return 3;
+			}
+
+			int b = hex2(str, p + 1);
+
+			if (b < 0 || (b & 0xC0) != 0x80) {
+				return 3;
+			}
+		}
+
+		int cp = utf8CodePoint(str, pos, b0, n);
+
+		// 拒绝过长编码（如：%C0%AE）、代理区字符和超出Unicode范围的字符
+		if ((n == 3 && (cp < 0x800 || (cp >= 0xD800 && cp <= 0xDFFF))) || (n == 4 && (cp < 0x10000 || cp > 0x10FFFF))) {
+			return 3;
+		}
+
+		return n * 3;
+	}
+
+	private static int utf8CodePoint(String str, int pos, int b0, int n) {
+		if (n == 1) {
+			return b0;
+		}
+
+		int cp = b0 & (0xFF >> (n + 1));
+
+		for (int k = 1; k < n; k++) {
+			cp = (cp << 6) | (hex2(str, pos + k * 3 + 1) & 0x3F);
+		}
+
+		return cp;
+	}
+
+	private static int hex2(String str, int pos) {
+		if (pos + 2 > str.length()) {
+			return -1;
+		}
+
+		int h = hexDigit(str.charAt(pos));
+		int l = hexDigit(str.charAt(pos + 1));
+
+		return h < 0 || l < 0 ? -1 : (h << 4) | l;
+	}
+
+	private static int hex4(String str, int pos) {
+		if (pos + 4 > str.length()) {
+			return -1;
+		}
+
+		int v = 0;
+
+		for (int k = 0; k < 4; k++) {
+			int d = hexDigit(str.charAt(pos + k));
+
+			if (d < 0) {
+				return -1;
+			}
+
+			v = (v << 4) | d;
+		}
+
+		return v;
+	}
+
+	private static int hexDigit(char c) {
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		} else if (c >= 'a' && c <= 'f') {
+			return c - 'a' + 10;
+		} else if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+
+		return -1;
+	}
+
+}
@@ -0,0 +1,56 @@
+package org.javaweb.rasp.commons.cache;
+
+/**
+ * 请求参数值在待检测字符串（如：执行的系统命令、SQL语句、文件路径、URL）中出现的位置
+ */
+public class RASPParameterOccurrence {
+
+	/**
+	 * 参数值所属的请求参数
+	 */
+	private final RASPCachedParameter parameter;
+
+	/**
+	 * 出现的参数值
+	 */
+	private final String value;
+
+	/**
+	 * 参数值在待检测字符串中的开始位置（包含）
+	 */
+	private final int start;
+
+	/**
+	 * 参数值在待检测字符串中的结束位置（不包含）
+	 */
+	private final int end;
+
+	public RASPParameterOccurrence(RASPCachedParameter parameter, String value, int start, int end) {
+		this.parameter = parameter;
+		this.value = value;
+		this.start = start;
+		this.end = end;
+	}
+
+	public RASPCachedParameter getParameter() {
+		return parameter;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	public int getEnd() {
+		return end;
+	}
+
+	@Override
+	public String toString() {
+		return parameter.getKey() + "=" + value + "[" + start + ", " + end + ")";
+	}
+
+}
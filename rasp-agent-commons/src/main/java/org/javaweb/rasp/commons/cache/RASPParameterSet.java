@@ -5,6 +5,7 @@ import org.javaweb.rasp.commons.context.RASPContext;
 
 import java.rasp.proxy.loader.HookResult;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
@@ -16,6 +17,11 @@ public class RASPParameterSet<E> extends HashSet<E> {
 
 	private static final List<RASPParameterFilter> PARAMETER_FILTER = new CopyOnWriteArrayList<RASPParameterFilter>();
 
+	/**
+	 * 请求参数值索引，第一次使用时创建
+	 */
+	private RASPParameterIndex parameterIndex;
+
 	public static void addParameterFilter(String className) {
 		try {
 			Class<?> clazz = Class.forName(className);
@@ -32,6 +38,134 @@ public class RASPParameterSet<E> extends HashSet<E> {
 		}
 	}
 
+	/**
+	 * 获取请求参数值索引，第一次调用时使用已缓存的参数创建，之后缓存的参数会追加到索引中，
+	 * 删除或修改已缓存的参数后重新创建
+	 *
+	 * @return 请求参数值索引
+	 */
+	public RASPParameterIndex getParameterIndex() {
+		if (parameterIndex == null) {
+			RASPParameterIndex index = new RASPParameterIndex();
+
+			for (E e : this) {
+				if (e instanceof RASPCachedParameter) {
+					index.add((RASPCachedParameter) e);
+				}
+			}
+
+			this.parameterIndex = index;
+		}
+
+		return parameterIndex;
+	}
+
+	@Override
+	public boolean add(E e) {
+		if (!super.add(e)) {
+			return false;
+		}
+
+		if (e instanceof RASPCachedParameter) {
+			RASPCachedParameter parameter = (RASPCachedParameter) e;
+			parameter.setOwner(this);
+
+			if (parameterIndex != null) {
+				parameterIndex.add(parameter);
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!super.remove(o)) {
+			return false;
+		}
+
+		removed(o);
+
+		return true;
+	}
+
+	/**
+	 * 参数从集合中删除后调用，索引不支持删除，下次使用时重新创建
+	 */
+	private void removed(Object o) {
+		if (o instanceof RASPCachedParameter) {
+			((RASPCachedParameter) o).clearOwner(this);
+		}
+
+		this.parameterIndex = null;
+	}
+
+	/**
+	 * 已缓存的参数修改参数名、参数值或参数位置之前调用，参数的hashCode会改变，所以先从集合中删除
+	 *
+	 * @param parameter 请求参数
+	 */
+	void beforeUpdate(RASPCachedParameter parameter) {
+		super.remove(parameter);
+	}
+
+	/**
+	 * 已缓存的参数修改之后调用，使用新的hashCode重新加入集合，并重新创建参数值索引（索引中存放的是修改前的参数值），
+	 * 修改后与其他已缓存的参数相同时不再重复缓存
+	 *
+	 * @param parameter 请求参数
+	 */
+	@SuppressWarnings("unchecked") // 参数修改前已经在当前集合中（由add设置owner），所以一定是E类型
+	void afterUpdate(RASPCachedParameter parameter) {
+		if (!super.add((E) parameter)) {
+			parameter.clearOwner(this);
+		}
+
+		this.parameterIndex = null;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		final Iterator<E> it = super.iterator();
+
+		return new Iterator<E>() {
+			private E current;
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public E next() {
+				return current = it.next();
+			}
+
+			@Override
+			public void remove() {
+				it.remove();
+				removed(current);
+			}
+		};
+	}
+
+	@Override
+	public void clear() {
+		for (Iterator<E> it = super.iterator(); it.hasNext(); ) {
+			E e = it.next();
+
+			if (e instanceof RASPCachedParameter) {
+				((RASPCachedParameter) e).clearOwner(this);
+			}
+		}
+
+		super.clear();
+
+		if (parameterIndex != null) {
+			parameterIndex.clear();
+		}
+	}
+
 	public HookResult<String[]> cacheParameter(RASPCachedParameter parameter, RASPContext context) {
 		if (contains(parameter)) {
 			return DEFAULT_STRING_ARRAY_RESULT;
@@ -1,8 +1,8 @@
 package org.javaweb.rasp.commons.cache;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import static org.javaweb.rasp.commons.config.RASPConfiguration.AGENT_PROPERTIES;
 import static org.javaweb.rasp.commons.utils.IOUtils.closeQuietly;
 
 /**
@@ -28,9 +28,9 @@ public class RASPRequestCached {
 	private Object output;
 
 	/**
-	 * 缓存SQL语句执行记录
+	 * 缓存SQL语句执行记录，超过sql_cache_max_size后淘汰最早缓存的SQL语句
 	 */
-	private final List<Integer> sqlHashCodes = new ArrayList<Integer>();
+	private final RASPIntHashSet sqlHashCodes = new RASPIntHashSet(AGENT_PROPERTIES.getSqlCacheMaxSize());
 
 	/**
 	 * 缓存的XML，只有请求类型为application/xml时候才会缓存
@@ -43,6 +43,11 @@ public class RASPRequestCached {
 	private final RASPParameterSet<RASPCachedParameter> raspCachedParameterList =
 			new RASPParameterSet<RASPCachedParameter>();
 
+	/**
+	 * 使用请求参数值创建的多模式匹配自动机，第一次使用时创建，缓存新的请求参数后重新创建
+	 */
+	private RASPParameterMatcher parameterMatcher;
+
 	public RASPOutputStreamCache getInputStreamCache() {
 		return inputStreamCache;
 	}
@@ -76,6 +81,32 @@ public class RASPRequestCached {
 		return raspCachedParameterList;
 	}
 
+	/**
+	 * 获取使用请求参数值创建的多模式匹配自动机
+	 *
+	 * @return 多模式匹配自动机
+	 */
+	public RASPParameterMatcher getParameterMatcher() {
+		RASPParameterIndex index = raspCachedParameterList.getParameterIndex();
+
+		if (parameterMatcher == null || !parameterMatcher.isCurrent(index)) {
+			this.parameterMatcher = new RASPParameterMatcher(index);
+		}
+
+		return parameterMatcher;
+	}
+
+	/**
+	 * 查找待检测字符串（如：执行的系统命令、SQL语句、文件路径、URL）中出现的所有请求参数值，
+	 * 查找耗时只与待检测字符串的长度相关，与请求参数的数量无关
+	 *
+	 * @param sink 待检测字符串
+	 * @return 参数值出现位置，没有匹配时返回空列表
+	 */
+	public List<RASPParameterOccurrence> findParameterOccurrences(CharSequence sink) {
+		return getParameterMatcher().findParameterOccurrences(sink);
+	}
+
 	/**
 	 * 缓存SQL查询语句,用于避免SQL重复验证问题
 	 *
@@ -98,16 +129,31 @@ public class RASPRequestCached {
 	}
 
 	/**
-	 * 关闭RASP请求缓存对象，同时清除缓存数据
+	 * 关闭RASP请求缓存对象，同时清除缓存数据并将缓存流的内存块归还到内存块池
 	 */
 	public void close() {
 		if (inputStreamCache != null) {
 			closeQuietly(inputStreamCache);
+			inputStreamCache.release();
 		}
 
 		if (outputStreamCache != null) {
 			closeQuietly(outputStreamCache);
+			outputStreamCache.release();
 		}
 	}
 
+	/**
+	 * 清除所有的缓存数据，用于复用同一线程中的请求缓存对象，调用前必须先调用close
+	 */
+	public void reset() {
+		this.inputStreamCache = null;
+		this.outputStreamCache = null;
+		this.output = null;
+		this.cachedXML = null;
+		this.parameterMatcher = null;
+		this.sqlHashCodes.clear();
+		this.raspCachedParameterList.clear();
+	}
+
 }
@@ -0,0 +1,46 @@
+package org.javaweb.rasp.commons.cache;
+
+import static org.javaweb.rasp.commons.config.RASPConfiguration.AGENT_PROPERTIES;
+
+/**
+ * 请求/响应流缓存的所属线程，缓存流只会被持有RASP上下文的请求线程访问，因此不使用synchronized。
+ * <p>
+ * 配置stream_owner_check=true（调试模式）后记录创建缓存流的线程，其他线程访问时抛出IllegalStateException，
+ * 未开启时{@link #check(RASPStreamOwner)}只有一次null判断。
+ */
+final class RASPStreamOwner {
+
+	private final Thread thread;
+
+	private RASPStreamOwner(Thread thread) {
+		this.thread = thread;
+	}
+
+	/**
+	 * 创建当前线程的所属线程检查对象
+	 *
+	 * @return 未开启stream_owner_check时返回null
+	 */
+	static RASPStreamOwner current() {
+		if (AGENT_PROPERTIES != null && AGENT_PROPERTIES.isStreamOwnerCheck()) {
+			return new RASPStreamOwner(Thread.currentThread());
+		}
+
+		return null;
+	}
+
+	/**
+	 * 检查当前线程是否是缓存流的所属线程
+	 *
+	 * @param owner 所属线程检查对象，null表示不检查
+	 */
+	static void check(RASPStreamOwner owner) {
+		if (owner != null && owner.thread != Thread.currentThread()) {
+			throw new IllegalStateException(
+					"RASP流缓存只能由所属线程[" + owner.thread.getName() + "]访问，当前线程：" +
+							Thread.currentThread().getName()
+			);
+		}
+	}
+
+}
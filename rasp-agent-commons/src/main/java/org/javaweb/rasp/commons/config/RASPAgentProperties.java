@@ -39,6 +39,30 @@ public class RASPAgentProperties extends RASPProperties {
 
 	private String logBufferSize;
 
+	private boolean hookEventRecycle;
+
+	private boolean inheritableContext;
+
+	private boolean contextRecycle;
+
+	private boolean appInitAsync;
+
+	private boolean circuitBreaker;
+
+	private int circuitBreakerBudget;
+
+	private int circuitBreakerWindow;
+
+	private boolean metrics;
+
+	private int metricsDumpInterval;
+
+	private int sqlCacheMaxSize;
+
+	private int streamBufferPoolSize;
+
+	private boolean streamOwnerCheck;
+
 	private static final String DEFAULT_BUFFER_SIZE = "10MB";
 
 	/**
@@ -80,6 +104,45 @@ public class RASPAgentProperties extends RASPProperties {
 		this.logLevel = configMap.getString(LOG_LEVEL, "INFO");
 		this.version = configMap.getString(VERSION);
 		this.logBufferSize = configMap.getString(LOG_BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+		this.hookEventRecycle = configMap.getBoolean(HOOK_EVENT_RECYCLE, false);
+		this.inheritableContext = configMap.getBoolean(INHERITABLE_CONTEXT, true);
+		this.contextRecycle = configMap.getBoolean(CONTEXT_RECYCLE, false);
+		this.appInitAsync = configMap.getBoolean(APP_INIT_ASYNC, false);
+		this.circuitBreaker = configMap.getBoolean(CIRCUIT_BREAKER, false);
+		this.circuitBreakerBudget = configMap.getInt(CIRCUIT_BREAKER_BUDGET, 10);
+		this.circuitBreakerWindow = configMap.getInt(CIRCUIT_BREAKER_WINDOW, 10);
+
+		// 设置自适应熔断预算和统计周期范围
+		if (circuitBreakerBudget < 1 || circuitBreakerBudget > 100) {
+			circuitBreakerBudget = 10;
+		}
+
+		if (circuitBreakerWindow < 1 || circuitBreakerWindow > MAX_TIME_INTERVAL) {
+			circuitBreakerWindow = 10;
+		}
+
+		this.metrics = configMap.getBoolean(METRICS, false);
+		this.metricsDumpInterval = configMap.getInt(METRICS_DUMP_INTERVAL, 60);
+
+		// 设置调用统计输出间隔范围
+		if (metricsDumpInterval < 0 || metricsDumpInterval > MAX_TIME_INTERVAL) {
+			metricsDumpInterval = 60;
+		}
+
+		this.sqlCacheMaxSize = configMap.getInt(SQL_CACHE_MAX_SIZE, 4096);
+
+		if (sqlCacheMaxSize < 0) {
+			sqlCacheMaxSize = 4096;
+		}
+
+		this.streamBufferPoolSize = configMap.getInt(STREAM_BUFFER_POOL_SIZE, 16);
+
+		// 设置内存块池大小范围：0-1024MB
+		if (streamBufferPoolSize < 0 || streamBufferPoolSize > 1024) {
+			streamBufferPoolSize = 16;
+		}
+
+		this.streamOwnerCheck = configMap.getBoolean(STREAM_OWNER_CHECK, false);
 
 		try {
 			// 检测缓存日志大小设置是否正确
@@ -149,4 +212,52 @@ public class RASPAgentProperties extends RASPProperties {
 		return logBufferSize;
 	}
 
-}
\ No newline at end of file
+	public boolean isHookEventRecycle() {
+		return hookEventRecycle;
+	}
+
+	public boolean isInheritableContext() {
+		return inheritableContext;
+	}
+
+	public boolean isContextRecycle() {
+		return contextRecycle;
+	}
+
+	public boolean isAppInitAsync() {
+		return appInitAsync;
+	}
+
+	public boolean isCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	public int getCircuitBreakerBudget() {
+		return circuitBreakerBudget;
+	}
+
+	public int getCircuitBreakerWindow() {
+		return circuitBreakerWindow;
+	}
+
+	public boolean isMetrics() {
+		return metrics;
+	}
+
+	public int getMetricsDumpInterval() {
+		return metricsDumpInterval;
+	}
+
+	public int getSqlCacheMaxSize() {
+		return sqlCacheMaxSize;
+	}
+
+	public int getStreamBufferPoolSize() {
+		return streamBufferPoolSize;
+	}
+
+	public boolean isStreamOwnerCheck() {
+		return streamOwnerCheck;
+	}
+
+}
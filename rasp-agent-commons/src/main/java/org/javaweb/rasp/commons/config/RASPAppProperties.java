@@ -1,5 +1,6 @@
 package org.javaweb.rasp.commons.config;
 
+import java.rasp.proxy.loader.RASPModuleType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -7,6 +8,7 @@ import java.util.Map;
 import static org.javaweb.rasp.commons.constants.RASPAppConstants.*;
 import static org.javaweb.rasp.commons.utils.EncryptUtils.base64Decode;
 import static org.javaweb.rasp.commons.utils.JsonUtils.toJsonList;
+import static org.javaweb.rasp.commons.utils.StringUtils.isNotEmpty;
 import static org.javaweb.rasp.commons.utils.URLUtils.appendFirstSlash;
 import static org.javaweb.rasp.commons.utils.URLUtils.urlNormalize;
 
@@ -22,6 +24,21 @@ public class RASPAppProperties extends RASPProperties {
 	 */
 	protected int[] openModules;
 
+	/**
+	 * RASP 当前开放的防御模块名称
+	 */
+	private String[] openModuleNames = new String[0];
+
+	/**
+	 * RASP 当前开放的防御模块掩码，使用RASPModuleType的模块ID计算，只包含已注册的模块
+	 */
+	protected long openModuleMask;
+
+	/**
+	 * 计算openModuleMask时已注册的模块数，之后注册了新的模块时需要重新计算
+	 */
+	private volatile int openModuleMaskCount = -1;
+
 	/**
 	 * 是否是静默模式: true、false
 	 */
@@ -67,6 +84,16 @@ public class RASPAppProperties extends RASPProperties {
 	 */
 	private String[] whiteAttackType;
 
+	/**
+	 * 白名单 攻击类型（按","拆分后的攻击类型数组）
+	 */
+	private String[][] whiteAttackTypes;
+
+	/**
+	 * 白名单前缀树，重新加载配置时整体替换
+	 */
+	private volatile RASPWhitelistTrie whitelistTrie = RASPWhitelistTrie.EMPTY;
+
 	/**
 	 * 补丁列表
 	 */
@@ -82,21 +109,43 @@ public class RASPAppProperties extends RASPProperties {
 	 */
 	private int servletStreamMaxCacheSize;
 
+	/**
+	 * Servlet输入输出流在内存中缓存的最大大小（KB），超过后写入临时文件，0表示只使用内存缓存
+	 */
+	private int servletStreamMemoryCacheSize;
+
 	/**
 	 * IP白名单列表
 	 */
 	private String[] ipWhitelist;
 
+	/**
+	 * 编译后的IP白名单，支持CIDR和IP段
+	 */
+	private volatile RASPIPSet ipWhitelistSet = RASPIPSet.EMPTY;
+
+	/**
+	 * 编译后的IP黑名单，支持CIDR和IP段
+	 */
+	private volatile RASPIPSet ipBlacklistSet = RASPIPSet.EMPTY;
+
 	public void reloadConfig(RASPConfigMap<String, Object> configMap) {
 		super.reloadConfig(configMap);
 
 		this.appID = (String) configMap.get(APP_ID);
 		String[] modules = configMap.getArray(MODULES_OPEN);
 
-		this.openModules = new int[modules.length];
+		int[] moduleHashes = new int[modules.length];
+
+		for (int i = 0; i < moduleHashes.length; i++) {
+			moduleHashes[i] = modules[i].hashCode();
+		}
+
+		this.openModules = moduleHashes;
 
-		for (int i = 0; i < openModules.length; i++) {
-			this.openModules[i] = modules[i].hashCode();
+		synchronized (this) {
+			this.openModuleNames = modules;
+			updateOpenModuleMask();
 		}
 
 		this.moduleDefense = configMap.getBoolean(MODULE_DEFENSE, true);
@@ -107,6 +156,8 @@ public class RASPAppProperties extends RASPProperties {
 		this.urlBlacklist = configMap.getArray(URL_BLACKLIST);
 		this.headerWhitelist = configMap.getArray(HEADER_WHITELIST);
 		this.ipWhitelist = configMap.getArray(IP_WHITELIST);
+		this.ipWhitelistSet = ipWhitelist.length > 0 ? new RASPIPSet(ipWhitelist) : RASPIPSet.EMPTY;
+		this.ipBlacklistSet = ipBlacklist.length > 0 ? new RASPIPSet(ipBlacklist) : RASPIPSet.EMPTY;
 
 		String whitelistStr = configMap.getString(WHITELIST);
 		String patchListStr = configMap.getString(PATCH_LIST);
@@ -114,6 +165,7 @@ public class RASPAppProperties extends RASPProperties {
 		this.patchList.clear();
 		whitelist = new String[0];
 		whiteAttackType = new String[0];
+		whiteAttackTypes = new String[0][];
 
 		// W10=表示[]，空
 		if (whitelistStr != null && !"W10=".equals(whitelistStr)) {
@@ -122,6 +174,7 @@ public class RASPAppProperties extends RASPProperties {
 			int index = 0;
 			whitelist = new String[setMap.size()];
 			whiteAttackType = new String[setMap.size()];
+			whiteAttackTypes = new String[setMap.size()][];
 
 			// 白名单URL预处理（URL标准化）
 			for (Map<String, Object> map : setMap) {
@@ -129,10 +182,15 @@ public class RASPAppProperties extends RASPProperties {
 				String attackType = (String) map.get("attack_type");
 				whitelist[index] = uri != null ? uri.replaceAll("/$", "") : null;
 				whiteAttackType[index] = attackType;
+				whiteAttackTypes[index] = isNotEmpty(attackType) ? attackType.split(",") : new String[0];
 				index++;
 			}
 		}
 
+		// 白名单前缀树创建完成后再整体替换
+		this.whitelistTrie = whitelist.length > 0 ?
+				new RASPWhitelistTrie(whitelist, whiteAttackTypes) : RASPWhitelistTrie.EMPTY;
+
 		// W10=表示[]，空
 		if (patchListStr != null && !"W10=".equals(patchListStr)) {
 			this.patchList = toJsonList(base64Decode(patchListStr));
@@ -145,6 +203,11 @@ public class RASPAppProperties extends RASPProperties {
 
 		this.servletStreamHook = configMap.getBoolean(SERVLET_STREAM_HOOK, false);
 		this.servletStreamMaxCacheSize = configMap.getInt(SERVLET_STREAM_MAX_CACHE_SIZE, 1);
+		this.servletStreamMemoryCacheSize = configMap.getInt(SERVLET_STREAM_MEMORY_CACHE_SIZE, 0);
+
+		if (servletStreamMemoryCacheSize < 0) {
+			servletStreamMemoryCacheSize = 0;
+		}
 	}
 
 	public String getAppID() {
@@ -155,6 +218,32 @@ public class RASPAppProperties extends RASPProperties {
 		return openModules;
 	}
 
+	public long getOpenModuleMask() {
+		// 配置加载后注册了新的模块时重新计算模块掩码
+		if (openModuleMaskCount != RASPModuleType.getModuleCount()) {
+			synchronized (this) {
+				updateOpenModuleMask();
+			}
+		}
+
+		return openModuleMask;
+	}
+
+	/**
+	 * 使用已注册的模块计算开放的防御模块掩码，未注册的模块名称（如：配置错误的模块名称）不会分配模块ID
+	 */
+	private void updateOpenModuleMask() {
+		int  count = RASPModuleType.getModuleCount();
+		long mask  = 0;
+
+		for (String module : openModuleNames) {
+			mask |= RASPModuleType.findModuleMask(module);
+		}
+
+		this.openModuleMask = mask;
+		this.openModuleMaskCount = count;
+	}
+
 	public boolean isModuleDefense() {
 		return moduleDefense;
 	}
@@ -187,6 +276,14 @@ public class RASPAppProperties extends RASPProperties {
 		return whiteAttackType;
 	}
 
+	public String[][] getWhiteAttackTypes() {
+		return whiteAttackTypes;
+	}
+
+	public RASPWhitelistTrie getWhitelistTrie() {
+		return whitelistTrie;
+	}
+
 	public List<Map<String, Object>> getPatchList() {
 		return patchList;
 	}
@@ -199,10 +296,22 @@ public class RASPAppProperties extends RASPProperties {
 		return servletStreamMaxCacheSize;
 	}
 
+	public int getServletStreamMemoryCacheSize() {
+		return servletStreamMemoryCacheSize;
+	}
+
 	public String[] getIpWhitelist() {
 		return ipWhitelist;
 	}
 
+	public RASPIPSet getIpWhitelistSet() {
+		return ipWhitelistSet;
+	}
+
+	public RASPIPSet getIpBlacklistSet() {
+		return ipBlacklistSet;
+	}
+
 	public boolean isDefenseVul() {
 		return defenseVul;
 	}
@@ -47,6 +47,9 @@ public class RASPConfiguration {
 	// RASP 数据目录
 	public static final File RASP_DATABASE_DIRECTORY = getDirectory(new File(RASP_CACHE_DIRECTORY, "database"));
 
+	// RASP 临时文件目录，存放超过内存缓存大小的请求/响应流
+	public static final File RASP_TMP_DIRECTORY = getDirectory(new File(RASP_CACHE_DIRECTORY, "tmp"));
+
 	// RASP 应用目录
 	public static final File RASP_APP_CONFIG_DIRECTORY = getDirectory(new File(RASP_CONFIG_DIRECTORY, "apps"));
 
@@ -0,0 +1,286 @@
+package org.javaweb.rasp.commons.config;
+
+import java.util.*;
+
+import static org.javaweb.rasp.commons.utils.IPV4Utils.textToNumericFormatV4;
+import static org.javaweb.rasp.commons.utils.IPV4Utils.textToNumericFormatV6;
+
+/**
+ * 编译后的IP名单，支持单个IP、CIDR（如：10.0.0.0/8、fe80::/10）和IP段（如：192.168.1.1-192.168.1.100），
+ * 同时支持IPv4和IPv6。IP名单按起始地址排序并合并为不重叠的区间，使用二分查找判断IP是否存在。
+ * <p>
+ * 无法解析的配置（如：主机名）只做字符串比较。IP名单在RASPAppProperties.reloadConfig时创建，创建后不再修改。
+ */
+public class RASPIPSet {
+
+	/**
+	 * 空的IP名单
+	 */
+	public static final RASPIPSet EMPTY = new RASPIPSet(new String[0]);
+
+	private final Ranges ipv4Ranges;
+
+	private final Ranges ipv6Ranges;
+
+	/**
+	 * 无法解析为IP地址的配置
+	 */
+	private final Set<String> names = new HashSet<String>();
+
+	private final boolean empty;
+
+	public RASPIPSet(String[] ips) {
+		List<long[]> ipv4List = new ArrayList<long[]>();
+		List<long[]> ipv6List = new ArrayList<long[]>();
+
+		for (String ip : ips) {
+			if (ip == null || (ip = ip.trim()).length() == 0) {
+				continue;
+			}
+
+			long[] range = parseRange(ip);
+
+			if (range == null) {
+				names.add(ip);
+			} else if (range[4] == 4) {
+				ipv4List.add(range);
+			} else {
+				ipv6List.add(range);
+			}
+		}
+
+		this.ipv4Ranges = new Ranges(ipv4List);
+		this.ipv6Ranges = new Ranges(ipv6List);
+		this.empty = ipv4List.isEmpty() && ipv6List.isEmpty() && names.isEmpty();
+	}
+
+	/**
+	 * 解析IP地址，IPv4映射的IPv6地址会转换为IPv4地址
+	 *
+	 * @param ip IP地址
+	 * @return IPv4返回4字节，IPv6返回16字节，无法解析时返回null
+	 */
+	public static byte[] parseIP(String ip) {
+		if (ip == null) {
+			return null;
+		}
+
+		return ip.indexOf(':') >= 0 ? textToNumericFormatV6(ip) : textToNumericFormatV4(ip);
+	}
+
+	public boolean isEmpty() {
+		return empty;
+	}
+
+	/**
+	 * 检测IP是否在名单中
+	 *
+	 * @param ip IP地址
+	 * @return 是否在名单中
+	 */
+	public boolean contains(String ip) {
+		return contains(parseIP(ip), ip);
+	}
+
+	/**
+	 * 检测IP是否在名单中，用于已解析过的IP地址（如：RASPContext中缓存的请求IP）
+	 *
+	 * @param address parseIP解析后的IP地址
+	 * @param ip      IP地址
+	 * @return 是否在名单中
+	 */
+	public boolean contains(byte[] address, String ip) {
+		if (empty) {
+			return false;
+		}
+
+		if (address != null) {
+			if (address.length == 4) {
+				if (ipv4Ranges.contains(0, toLong(address, 0, 4))) {
+					return true;
+				}
+			} else if (ipv6Ranges.contains(toLong(address, 0, 8), toLong(address, 8, 16))) {
+				return true;
+			}
+		}
+
+		return ip != null && !names.isEmpty() && names.contains(ip);
+	}
+
+	/**
+	 * 解析IP、CIDR或IP段
+	 *
+	 * @return {起始地址高64位, 起始地址低64位, 结束地址高64位, 结束地址低64位, 地址字节数}，无法解析时返回null
+	 */
+	private static long[] parseRange(String text) {
+		int slash = text.indexOf('/');
+
+		if (slash > 0) {
+			byte[] address = parseIP(text.substring(0, slash));
+
+			if (address == null) {
+				return null;
+			}
+
+			int prefix;
+
+			try {
+				prefix = Integer.parseInt(text.substring(slash + 1).trim());
+			} catch (NumberFormatException e) {
+				return null;
+			}
+
+			// IPv4映射的IPv6地址已被转换为IPv4地址，前缀需要去掉前96位
+			if (address.length == 4 && text.indexOf(':') >= 0) {
+				prefix -= 96;
+			}
+
+			int bits = address.length * 8;
+
+			if (prefix < 0 || prefix > bits) {
+				return null;
+			}
+
+			byte[] start = address.clone();
+			byte[] end   = address.clone();
+
+			for (int i = prefix; i < bits; i++) {
+				start[i >>> 3] &= ~(0x80 >>> (i & 7));
+				end[i >>> 3] |= (0x80 >>> (i & 7));
+			}
+
+			return toRange(start, end);
+		}
+
+		int dash = text.indexOf('-');
+
+		if (dash > 0) {
+			byte[] start = parseIP(text.substring(0, dash).trim());
+			byte[] end   = parseIP(text.substring(dash + 1).trim());
+
+			if (start == null || end == null || start.length != end.length) {
+				return null;
+			}
+
+			return toRange(start, end);
+		}
+
+		byte[] address = parseIP(text);
+
+		return address != null ? toRange(address, address) : null;
+	}
+
+	private static long[] toRange(byte[] start, byte[] end) {
+		if (start.length == 4) {
+			return new long[]{0, toLong(start, 0, 4), 0, toLong(end, 0, 4), 4};
+		}
+
+		return new long[]{toLong(start, 0, 8), toLong(start, 8, 16), toLong(end, 0, 8), toLong(end, 8, 16), 16};
+	}
+
+	private static long toLong(byte[] bytes, int from, int to) {
+		long value = 0;
+
+		for (int i = from; i < to; i++) {
+			value = (value << 8) | (bytes[i] & 0xFF);
+		}
+
+		return value;
+	}
+
+	/**
+	 * 无符号比较两个128位地址
+	 */
+	private static int compare(long hi1, long lo1, long hi2, long lo2) {
+		if (hi1 != hi2) {
+			return (hi1 ^ Long.MIN_VALUE) < (hi2 ^ Long.MIN_VALUE) ? -1 : 1;
+		}
+
+		if (lo1 != lo2) {
+			return (lo1 ^ Long.MIN_VALUE) < (lo2 ^ Long.MIN_VALUE) ? -1 : 1;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * 按起始地址排序、不重叠的地址区间
+	 */
+	private static final class Ranges {
+
+		private final long[] startHi;
+
+		private final long[] startLo;
+
+		private final long[] endHi;
+
+		private final long[] endLo;
+
+		private final int size;
+
+		Ranges(List<long[]> ranges) {
+			Collections.sort(ranges, new Comparator<long[]>() {
+				@Override
+				public int compare(long[] o1, long[] o2) {
+					return RASPIPSet.compare(o1[0], o1[1], o2[0], o2[1]);
+				}
+			});
+
+			int n = ranges.size();
+
+			this.startHi = new long[n];
+			this.startLo = new long[n];
+			this.endHi = new long[n];
+			this.endLo = new long[n];
+
+			int count = 0;
+
+			for (long[] range : ranges) {
+				// 忽略起始地址大于结束地址的IP段
+				if (RASPIPSet.compare(range[0], range[1], range[2], range[3]) > 0) {
+					continue;
+				}
+
+				int last = count - 1;
+
+				// 与上一个区间重叠时合并
+				if (count > 0 && RASPIPSet.compare(range[0], range[1], endHi[last], endLo[last]) <= 0) {
+					if (RASPIPSet.compare(range[2], range[3], endHi[last], endLo[last]) > 0) {
+						endHi[last] = range[2];
+						endLo[last] = range[3];
+					}
+
+					continue;
+				}
+
+				startHi[count] = range[0];
+				startLo[count] = range[1];
+				endHi[count] = range[2];
+				endLo[count] = range[3];
+				count++;
+			}
+
+			this.size = count;
+		}
+
+		boolean contains(long hi, long lo) {
+			int low  = 0;
+			int high = size - 1;
+
+			// 查找起始地址小于等于hi:lo的最后一个区间
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+
+				if (RASPIPSet.compare(startHi[mid], startLo[mid], hi, lo) <= 0) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+
+			return high >= 0 && RASPIPSet.compare(hi, lo, endHi[high], endLo[high]) <= 0;
+		}
+
+	}
+
+}
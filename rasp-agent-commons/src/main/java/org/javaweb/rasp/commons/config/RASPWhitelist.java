@@ -3,7 +3,6 @@ package org.javaweb.rasp.commons.config;
 import org.javaweb.rasp.commons.context.RASPContext;
 
 import static org.javaweb.rasp.commons.log.RASPLogger.errorLog;
-import static org.javaweb.rasp.commons.utils.StringUtils.isEmpty;
 import static org.javaweb.rasp.commons.utils.StringUtils.isNotEmpty;
 import static org.javaweb.rasp.commons.utils.URLUtils.urlNormalize;
 
@@ -13,40 +12,24 @@ import static org.javaweb.rasp.commons.utils.URLUtils.urlNormalize;
  */
 public class RASPWhitelist {
 
+	private static final String[] EMPTY_ATTACK_TYPES = new String[0];
+
 	/**
-	 * 检测当前请求是否存在于白名单列表
+	 * 检测当前请求是否存在于白名单列表，多个白名单匹配时返回最具体（路径最长）的白名单
 	 *
 	 * @param context RASP上下文
-	 * @return 是否是白名单请求
+	 * @return 白名单下标，不是白名单请求时返回-1
 	 */
 	public static int getWhitelistIndexOfRequest(RASPContext context) {
 		try {
-			RASPAppProperties properties = context.getAppProperties();
-
-			// 获取白名单列表
-			String[] whiteList = properties.getWhitelist();
+			RASPWhitelistTrie whitelistTrie = context.getAppProperties().getWhitelistTrie();
 
-			if (whiteList.length > 0) {
+			if (whitelistTrie != RASPWhitelistTrie.EMPTY) {
 				String requestURI = context.getRequestPath();
 
 				if (isNotEmpty(requestURI)) {
 					// 将请求URL地址转换成标准的路径
-					String path = urlNormalize(requestURI);
-
-					// 检测当前的文件路径是否包含在白名单
-					for (int i = 0; i < whiteList.length; i++) {
-						String url = whiteList[i];
-						if (isEmpty(url)) {
-							continue;
-						}
-
-						int len = url.length();
-
-						// 目录匹配，如：/data/index.jsp -> /data
-						if (path.startsWith(url) && (path.length() == len || path.charAt(len) == '/')) {
-							return i;
-						}
-					}
+					return whitelistTrie.indexOf(urlNormalize(requestURI));
 				}
 			}
 		} catch (Exception e) {
@@ -74,4 +57,25 @@ public class RASPWhitelist {
 		return "";
 	}
 
+	/**
+	 * 获取白名单的攻击类型数组，返回的数组为配置共享的数组，不允许修改
+	 *
+	 * @param context RASP上下文
+	 * @param index   白名单下标
+	 * @return 攻击类型数组
+	 */
+	public static String[] getAttackTypeWhitelists(RASPContext context, int index) {
+		if (index == -1) {
+			return EMPTY_ATTACK_TYPES;
+		}
+
+		try {
+			return context.getAppProperties().getWhitelistTrie().getAttackTypes(index);
+		} catch (Exception e) {
+			errorLog("检测白名单功能异常:", e);
+		}
+
+		return EMPTY_ATTACK_TYPES;
+	}
+
 }
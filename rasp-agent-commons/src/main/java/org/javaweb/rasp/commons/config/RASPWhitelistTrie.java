@@ -0,0 +1,203 @@
+package org.javaweb.rasp.commons.config;
+
+/**
+ * URL白名单路径前缀树，按"/"拆分路径，每个路径节点使用开放寻址（线性探测）存储子节点，
+ * 查找时直接在请求路径上计算路径段的hash并比较，不会创建路径段字符串，查找复杂度与请求路径长度相关。
+ * <p>
+ * 前缀树在RASPAppProperties.reloadConfig时创建，创建后不再修改，重新加载配置时整体替换。
+ */
+public class RASPWhitelistTrie {
+
+	/**
+	 * 空的前缀树
+	 */
+	public static final RASPWhitelistTrie EMPTY = new RASPWhitelistTrie(new String[0], new String[0][]);
+
+	private static final String[] EMPTY_ATTACK_TYPES = new String[0];
+
+	private final Node root = new Node();
+
+	/**
+	 * 白名单对应的攻击类型
+	 */
+	private final String[][] attackTypes;
+
+	/**
+	 * 创建白名单前缀树
+	 *
+	 * @param whitelist   白名单URL列表（已标准化，不包含末尾的"/"）
+	 * @param attackTypes 白名单对应的攻击类型
+	 */
+	public RASPWhitelistTrie(String[] whitelist, String[][] attackTypes) {
+		this.attackTypes = attackTypes;
+
+		for (int i = 0; i < whitelist.length; i++) {
+			String url = whitelist[i];
+
+			if (url == null || url.length() == 0) {
+				continue;
+			}
+
+			Node node = root;
+			int  len  = url.length();
+
+			for (int start = 0; start < len; ) {
+				int end = url.indexOf('/', start);
+
+				if (end < 0) {
+					end = len;
+				}
+
+				if (end > start) {
+					node = node.put(url.substring(start, end));
+				}
+
+				start = end + 1;
+			}
+
+			// 同一个URL配置了多次时使用第一个配置
+			if (node != root && node.index < 0) {
+				node.index = i;
+			}
+		}
+	}
+
+	/**
+	 * 查找请求路径匹配的白名单，多个白名单匹配时返回最具体（路径最长）的白名单
+	 *
+	 * @param path 标准化后的请求路径
+	 * @return 白名单下标，不匹配时返回-1
+	 */
+	public int indexOf(String path) {
+		Node node  = root;
+		int  index = -1;
+		int  len   = path.length();
+
+		for (int start = 0; start < len; ) {
+			int end = path.indexOf('/', start);
+
+			if (end < 0) {
+				end = len;
+			}
+
+			if (end > start) {
+				node = node.get(path, start, end);
+
+				if (node == null) {
+					break;
+				}
+
+				if (node.index >= 0) {
+					index = node.index;
+				}
+			}
+
+			start = end + 1;
+		}
+
+		return index;
+	}
+
+	/**
+	 * 获取白名单对应的攻击类型
+	 *
+	 * @param index 白名单下标
+	 * @return 攻击类型数组，返回的数组不允许修改
+	 */
+	public String[] getAttackTypes(int index) {
+		if (index < 0 || index >= attackTypes.length || attackTypes[index] == null) {
+			return EMPTY_ATTACK_TYPES;
+		}
+
+		return attackTypes[index];
+	}
+
+	private static final class Node {
+
+		private String[] keys = new String[2];
+
+		private Node[] children = new Node[2];
+
+		private int size;
+
+		/**
+		 * 以当前节点结尾的白名单下标，-1表示当前节点不是白名单
+		 */
+		private int index = -1;
+
+		Node get(String path, int start, int end) {
+			int length = end - start;
+			int hash   = 0;
+
+			// 与String.hashCode的计算方式一致
+			for (int i = start; i < end; i++) {
+				hash = 31 * hash + path.charAt(i);
+			}
+
+			int mask = keys.length - 1;
+
+			for (int i = mix(hash) & mask; keys[i] != null; i = (i + 1) & mask) {
+				String key = keys[i];
+
+				if (key.length() == length && path.regionMatches(start, key, 0, length)) {
+					return children[i];
+				}
+			}
+
+			return null;
+		}
+
+		Node put(String segment) {
+			int mask = keys.length - 1;
+			int i    = mix(segment.hashCode()) & mask;
+
+			for (; keys[i] != null; i = (i + 1) & mask) {
+				if (keys[i].equals(segment)) {
+					return children[i];
+				}
+			}
+
+			Node child = new Node();
+			keys[i] = segment;
+			children[i] = child;
+
+			// 负载因子不超过0.5
+			if (++size * 2 > keys.length) {
+				resize();
+			}
+
+			return child;
+		}
+
+		private void resize() {
+			String[] oldKeys     = keys;
+			Node[]   oldChildren = children;
+
+			this.keys = new String[oldKeys.length * 2];
+			this.children = new Node[oldKeys.length * 2];
+
+			int mask = keys.length - 1;
+
+			for (int j = 0; j < oldKeys.length; j++) {
+				if (oldKeys[j] != null) {
+					int i = mix(oldKeys[j].hashCode()) & mask;
+
+					while (keys[i] != null) {
+						i = (i + 1) & mask;
+					}
+
+					keys[i] = oldKeys[j];
+					children[i] = oldChildren[j];
+				}
+			}
+		}
+
+		private static int mix(int hash) {
+			int h = hash * 0x9E3779B9;
+
+			return h ^ (h >>> 16);
+		}
+
+	}
+
+}
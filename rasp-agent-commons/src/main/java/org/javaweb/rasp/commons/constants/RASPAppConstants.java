@@ -77,4 +77,9 @@ public class RASPAppConstants {
 	 */
 	public static final String SERVLET_STREAM_MAX_CACHE_SIZE = "servlet_stream_max_cache_size";
 
+	/**
+	 * Servlet输入输出流在内存中缓存的最大大小（单位：KB），超过后写入RASP临时目录中的临时文件，0表示只使用内存缓存
+	 */
+	public static final String SERVLET_STREAM_MEMORY_CACHE_SIZE = "servlet_stream_memory_cache_size";
+
 }
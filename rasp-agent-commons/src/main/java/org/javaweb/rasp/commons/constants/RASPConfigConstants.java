@@ -80,4 +80,65 @@ public class RASPConfigConstants {
 	 */
 	public static final String LOG_BUFFER_SIZE = "log_buffer_size";
 
+	/**
+	 * 是否开启线程级别的可回收Hook事件
+	 */
+	public static final String HOOK_EVENT_RECYCLE = "hook_event_recycle";
+
+	/**
+	 * RASP上下文是否自动传递到请求线程创建的子线程中（InheritableThreadLocal），
+	 * 设置为false时使用ThreadLocal，异步任务需要使用RASPContextPropagation显式传递RASP上下文
+	 */
+	public static final String INHERITABLE_CONTEXT = "inheritable_context";
+
+	/**
+	 * 是否开启线程级别的RASP上下文容器复用，开启inheritable_context时不生效
+	 */
+	public static final String CONTEXT_RECYCLE = "context_recycle";
+
+	/**
+	 * Web应用第一次访问时是否异步调用RASPAppInitialize初始化
+	 */
+	public static final String APP_INIT_ASYNC = "app_init_async";
+
+	/**
+	 * 是否开启进程级别的自适应熔断
+	 */
+	public static final String CIRCUIT_BREAKER = "circuit_breaker";
+
+	/**
+	 * 自适应熔断的RASP耗时预算（RASP模块耗时占请求耗时的百分比）
+	 */
+	public static final String CIRCUIT_BREAKER_BUDGET = "circuit_breaker_budget";
+
+	/**
+	 * 自适应熔断的统计周期（秒）
+	 */
+	public static final String CIRCUIT_BREAKER_WINDOW = "circuit_breaker_window";
+
+	/**
+	 * 是否开启RASP模块和Hook的调用统计
+	 */
+	public static final String METRICS = "metrics";
+
+	/**
+	 * RASP模块和Hook调用统计输出到模块日志的时间间隔（秒），0表示不输出
+	 */
+	public static final String METRICS_DUMP_INTERVAL = "metrics_dump_interval";
+
+	/**
+	 * 单个请求中缓存的SQL语句最大数，超过后淘汰最早缓存的SQL语句，0表示不限制
+	 */
+	public static final String SQL_CACHE_MAX_SIZE = "sql_cache_max_size";
+
+	/**
+	 * 请求/响应流缓存共享的内存块池最大大小（单位：MB），0表示不复用内存块
+	 */
+	public static final String STREAM_BUFFER_POOL_SIZE = "stream_buffer_pool_size";
+
+	/**
+	 * 是否检查请求/响应流缓存只被创建它的请求线程访问（调试模式），跨线程访问时抛出IllegalStateException
+	 */
+	public static final String STREAM_OWNER_CHECK = "stream_owner_check";
+
 }
@@ -0,0 +1,69 @@
+package org.javaweb.rasp.commons.context;
+
+import org.javaweb.rasp.commons.attack.RASPAttackInfo;
+
+/**
+ * Web应用后台初始化（app_init_async）使用的RASP上下文，在请求线程中复制第一次请求的Web应用信息和请求信息，
+ * 不持有请求的RASP上下文，请求结束后RASP上下文关闭或被回收不会影响后台初始化。
+ * 后台初始化时请求可能已经结束，所以不能阻断请求。
+ */
+final class RASPAppInitContext extends RASPContext {
+
+	private final String requestIP;
+
+	private final String serverIP;
+
+	private final int serverPort;
+
+	private final String requestPath;
+
+	private final boolean whitelist;
+
+	private final String[] attackTypeWhitelist;
+
+	RASPAppInitContext(RASPContext context) {
+		super(context);
+
+		this.requestIP = context.getRequestIP();
+		this.serverIP = context.getServerIP();
+		this.serverPort = context.getServerPort();
+		this.requestPath = context.getRequestPath();
+		this.whitelist = context.isWhitelist();
+		this.attackTypeWhitelist = context.getAttackTypeWhitelist();
+	}
+
+	@Override
+	public String getRequestIP() {
+		return requestIP;
+	}
+
+	@Override
+	public String getServerIP() {
+		return serverIP;
+	}
+
+	@Override
+	public int getServerPort() {
+		return serverPort;
+	}
+
+	@Override
+	public String getRequestPath() {
+		return requestPath;
+	}
+
+	@Override
+	public boolean isWhitelist() {
+		return whitelist;
+	}
+
+	@Override
+	public String[] getAttackTypeWhitelist() {
+		return attackTypeWhitelist;
+	}
+
+	@Override
+	public void blockRequest(RASPAttackInfo attack) {
+	}
+
+}
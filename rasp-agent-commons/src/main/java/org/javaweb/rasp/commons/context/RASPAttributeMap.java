@@ -0,0 +1,203 @@
+package org.javaweb.rasp.commons.context;
+
+import java.util.*;
+
+/**
+ * RASP上下文的单线程属性存储，RASP上下文只在请求线程中访问，通常只有几个属性，
+ * 所以使用键值数组线性查找，不需要计算hash也不会为每个属性创建Entry对象。
+ * <p>
+ * 该类不是线程安全的，RASP上下文传递到其他线程时会复制为ConcurrentHashMap，
+ * 为了与ConcurrentHashMap保持一致，不允许使用null作为键或值。
+ */
+public class RASPAttributeMap extends AbstractMap<String, Object> {
+
+	/**
+	 * 默认容量，超过后按2倍扩容
+	 */
+	private static final int DEFAULT_CAPACITY = 8;
+
+	private String[] keys = new String[DEFAULT_CAPACITY];
+
+	private Object[] values = new Object[DEFAULT_CAPACITY];
+
+	private int size;
+
+	private int indexOf(Object key) {
+		for (int i = 0; i < size; i++) {
+			if (keys[i].equals(key)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key != null && indexOf(key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (key == null) {
+			return null;
+		}
+
+		int index = indexOf(key);
+
+		return index >= 0 ? values[index] : null;
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		if (key == null || value == null) {
+			throw new NullPointerException();
+		}
+
+		int index = indexOf(key);
+
+		if (index >= 0) {
+			Object old = values[index];
+			values[index] = value;
+
+			return old;
+		}
+
+		if (size == keys.length) {
+			this.keys = Arrays.copyOf(keys, size * 2);
+			this.values = Arrays.copyOf(values, size * 2);
+		}
+
+		keys[size] = key;
+		values[size++] = value;
+
+		return null;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		if (key == null) {
+			return null;
+		}
+
+		int index = indexOf(key);
+
+		if (index < 0) {
+			return null;
+		}
+
+		Object old = values[index];
+		removeAt(index);
+
+		return old;
+	}
+
+	/**
+	 * 删除指定位置的属性，使用最后一个属性填充被删除的位置
+	 */
+	private void removeAt(int index) {
+		int last = --size;
+
+		keys[index] = keys[last];
+		values[index] = values[last];
+		keys[last] = null;
+		values[last] = null;
+	}
+
+	@Override
+	public void clear() {
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		this.size = 0;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+		private int index;
+
+		private int last = -1;
+
+		@Override
+		public boolean hasNext() {
+			return index < size;
+		}
+
+		@Override
+		public Entry<String, Object> next() {
+			if (index >= size) {
+				throw new NoSuchElementException();
+			}
+
+			last = index++;
+
+			return new AttributeEntry(RASPAttributeMap.this, keys[last], values[last]);
+		}
+
+		@Override
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+
+			// 最后一个属性移动到了被删除的位置，需要重新访问该位置
+			removeAt(last);
+			index = last;
+			last = -1;
+		}
+
+	}
+
+	/**
+	 * 迭代器返回的属性，setValue时重新查找属性位置（迭代器删除属性后属性位置会改变），属性已被删除时不修改属性存储
+	 */
+	private static final class AttributeEntry extends SimpleEntry<String, Object> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient RASPAttributeMap map;
+
+		AttributeEntry(RASPAttributeMap map, String key, Object value) {
+			super(key, value);
+			this.map = map;
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			if (value == null) {
+				throw new NullPointerException();
+			}
+
+			if (map != null) {
+				int index = map.indexOf(getKey());
+
+				if (index >= 0) {
+					map.values[index] = value;
+				}
+			}
+
+			return super.setValue(value);
+		}
+
+	}
+
+}
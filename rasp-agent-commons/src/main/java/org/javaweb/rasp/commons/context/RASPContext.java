@@ -1,10 +1,12 @@
 package org.javaweb.rasp.commons.context;
 
 import org.javaweb.rasp.commons.MethodHookEvent;
+import org.javaweb.rasp.commons.RASPCircuitBreaker;
 import org.javaweb.rasp.commons.attack.RASPAttackInfo;
 import org.javaweb.rasp.commons.cache.RASPRequestCached;
 import org.javaweb.rasp.commons.config.RASPAppProperties;
 import org.javaweb.rasp.commons.config.RASPConfiguration;
+import org.javaweb.rasp.commons.config.RASPIPSet;
 import org.javaweb.rasp.commons.config.RASPPropertiesConfiguration;
 import org.javaweb.rasp.commons.decoder.RASPDataDecoder;
 import org.javaweb.rasp.commons.log.RASPAccessLog;
@@ -12,6 +14,7 @@ import org.javaweb.rasp.commons.log.RASPAttackLog;
 import org.javaweb.rasp.commons.log.RASPLogData;
 import org.javaweb.rasp.commons.log.RASPLogger;
 import org.javaweb.rasp.commons.logback.classic.Logger;
+import org.javaweb.rasp.commons.metrics.RASPMetrics;
 
 import java.io.Closeable;
 import java.io.File;
@@ -22,6 +25,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static java.lang.System.nanoTime;
+import static java.rasp.proxy.loader.RASPModuleType.MAX_MASK_MODULE_ID;
 import static org.javaweb.rasp.commons.config.RASPConfiguration.AGENT_PROPERTIES;
 import static org.javaweb.rasp.commons.config.RASPConfiguration.RASP_LOG_DIRECTORY;
 import static org.javaweb.rasp.commons.constants.RASPConstants.*;
@@ -35,9 +39,14 @@ import static org.javaweb.rasp.commons.utils.URLUtils.getStandardContextPath;
 public abstract class RASPContext implements Closeable {
 
 	/**
-	 * RASP 缓存的属性对象
+	 * RASP 缓存的属性对象，第一次写入属性时创建，RASP上下文传递到其他线程时会替换为ConcurrentHashMap
 	 */
-	protected final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+	protected Map<String, Object> attributes;
+
+	/**
+	 * RASP上下文是否已传递到其他线程
+	 */
+	private volatile boolean published;
 
 	/**
 	 * 静默模式
@@ -72,13 +81,18 @@ public abstract class RASPContext implements Closeable {
 	/**
 	 * 上下文是否已关闭
 	 */
-	protected boolean contextClosed = false;
+	protected volatile boolean contextClosed = false;
 
 	/**
 	 * 请求开始的纳秒
 	 */
 	protected final long requestStartNanoTime;
 
+	/**
+	 * RASP在当前请求中的自身耗时（纳秒），不包括应用代码的耗时，只在开启调用统计或自适应熔断时记录
+	 */
+	private long raspNanoTime;
+
 	/**
 	 * 缓存的Servlet、Filter类实例
 	 */
@@ -109,7 +123,32 @@ public abstract class RASPContext implements Closeable {
 	/**
 	 * 缓存RASP攻击日志
 	 */
-	protected final Set<RASPAttackInfo> attacks = new HashSet<RASPAttackInfo>();
+	protected final Set<RASPAttackInfo> attacks;
+
+	/**
+	 * 当前请求开启的模块掩码，第一次调用mustFilter时计算
+	 */
+	private long moduleMask;
+
+	/**
+	 * 模块掩码是否已计算
+	 */
+	private boolean moduleMaskInitialized;
+
+	/**
+	 * 解析后的请求IP
+	 */
+	private byte[] requestIPAddress;
+
+	/**
+	 * 请求IP是否已解析
+	 */
+	private boolean requestIPParsed;
+
+	/**
+	 * 当前线程的RASP上下文容器，未开启context_recycle或容器正在被使用时为null
+	 */
+	private RASPContextArena arena;
 
 	public RASPContext(MethodHookEvent event) {
 		this(event, "/ROOT");
@@ -117,10 +156,21 @@ public abstract class RASPContext implements Closeable {
 
 	public RASPContext(MethodHookEvent event, String contextPath) {
 		this.requestStartNanoTime = nanoTime();
-		this.event = event;
+
+		// RASP上下文会在整个请求中持有请求入口的Hook事件，所以不能使用可回收的Hook事件
+		this.event = event.detach();
 		this.contextPath = getStandardContextPath(contextPath);
 		this.cacheClass = event.getThisObject();
-		this.cachedRequest = new RASPRequestCached();
+		this.arena = RASPContextArena.acquire();
+
+		if (arena != null) {
+			this.attributes = arena.attributes;
+			this.attacks = arena.attacks;
+			this.cachedRequest = arena.cachedRequest;
+		} else {
+			this.attacks = new HashSet<RASPAttackInfo>();
+			this.cachedRequest = new RASPRequestCached();
+		}
 
 		// 获取Web应用配置，第一次请求的时候会比较耗时，因为初始化日志对象和配置文件
 		this.applicationConfig = RASPConfiguration.getApplicationConfig(this);
@@ -130,18 +180,87 @@ public abstract class RASPContext implements Closeable {
 		this.moduleDefense = appProperties.isModuleDefense();
 	}
 
+	/**
+	 * 复制RASP上下文中的Web应用信息，创建不包含请求数据（属性、攻击日志、请求缓存）的RASP上下文，
+	 * 不使用当前线程的RASP上下文容器，可以在请求结束后的其他线程中使用
+	 *
+	 * @param context RASP上下文
+	 */
+	protected RASPContext(RASPContext context) {
+		this.requestStartNanoTime = nanoTime();
+		this.event = context.event;
+		this.contextPath = context.contextPath;
+		this.contextName = context.getContextName();
+		this.cacheClass = context.cacheClass;
+		this.attacks = new HashSet<RASPAttackInfo>();
+		this.cachedRequest = new RASPRequestCached();
+		this.applicationConfig = context.applicationConfig;
+		this.appProperties = context.appProperties;
+		this.silent = context.silent;
+		this.defenseVul = context.defenseVul;
+		this.moduleDefense = context.moduleDefense;
+	}
+
+	/**
+	 * 创建RASP上下文属性存储，开启inheritable_context时子线程会隐式共享RASP上下文，所以只能使用ConcurrentHashMap
+	 *
+	 * @return 属性存储
+	 */
+	static Map<String, Object> createAttributes() {
+		if (AGENT_PROPERTIES.isInheritableContext()) {
+			return new ConcurrentHashMap<String, Object>();
+		}
+
+		return new RASPAttributeMap();
+	}
+
 	public Object setAttribute(String name, Object value) {
-		return attributes.put(name, value);
+		return getAttributes().put(name, value);
 	}
 
 	public Object getAttribute(String name) {
-		return attributes.get(name);
+		return attributes != null ? attributes.get(name) : null;
 	}
 
 	public Map<String, Object> getAttributes() {
+		if (attributes == null) {
+			this.attributes = createAttributes();
+		}
+
 		return attributes;
 	}
 
+	/**
+	 * 标记RASP上下文将被传递到其他线程，单线程属性存储会被复制为ConcurrentHashMap，
+	 * 必须在请求线程中、传递RASP上下文之前调用
+	 */
+	public void publish() {
+		if (published) {
+			return;
+		}
+
+		if (!(attributes instanceof ConcurrentHashMap)) {
+			Map<String, Object> map = new ConcurrentHashMap<String, Object>();
+
+			if (attributes != null) {
+				map.putAll(attributes);
+			}
+
+			this.attributes = map;
+		}
+
+		this.published = true;
+	}
+
+	/**
+	 * RASP上下文是否已传递到其他线程
+	 *
+	 * @return 是否已传递
+	 */
+	public boolean isPublished() {
+		return published;
+	}
+
 	public abstract String getRequestIP();
 
 	public abstract String getServerIP();
@@ -209,19 +328,10 @@ public abstract class RASPContext implements Closeable {
 		// 生成当前应用的Logger名称
 		String loggerName = createLoggerName(loggerPrefix, contextName);
 
-		// 检测Logger是否已初始化，无需重复创建logger（会导致日志生成重复记录）
-		if (!hasLogger(loggerName)) {
-			// RASP日志目录
-			File logDir = new File(RASP_LOG_DIRECTORY, contextName);
-
-			if (!logDir.exists() && !logDir.mkdirs()) {
-				errorLog("初始化{}日志对象失败，无法创建目录：{}", contextName, logDir);
-			}
-
-			return createRASPLogger(loggerName, new File(logDir, fileName), INFO, "%msg%n", fileSize);
-		}
+		// 检测和创建Logger在同一个锁中完成，后台线程同时记录日志时不会重复创建logger（会导致日志生成重复记录）
+		File logFile = new File(new File(RASP_LOG_DIRECTORY, contextName), fileName);
 
-		return RASPLogger.getLogger(loggerName);
+		return getOrCreateRASPLogger(loggerName, logFile, INFO, "%msg%n", fileSize);
 	}
 
 	/**
@@ -279,7 +389,10 @@ public abstract class RASPContext implements Closeable {
 	}
 
 	/**
-	 * 检查请求是否需要经过安全模块处理：1. 是否启用RASP模块检测功能；2. 是否是白名单；3. 待检测的模块是否开启；4. 检测是否触发熔断；
+	 * 检查请求是否需要经过安全模块处理：1. 是否启用RASP模块检测功能；2. 是否是白名单；3. 待检测的模块是否开启；4. 检测是否触发熔断（自适应熔断和请求超时熔断）；
+	 * <p>
+	 * 白名单、IP白名单和模块开启状态在同一个请求中不会改变，第一次检测时计算出当前请求开启的模块掩码，
+	 * 之后的检测只需要判断模块ID对应的位和熔断状态
 	 *
 	 * @param moduleType 模块类型
 	 * @return 是否需要过滤
@@ -290,6 +403,73 @@ public abstract class RASPContext implements Closeable {
 			return false;
 		}
 
+		int moduleId = moduleType.getModuleId();
+
+		if (moduleId < MAX_MASK_MODULE_ID) {
+			if (!moduleMaskInitialized) {
+				this.moduleMask = createModuleMask();
+				this.moduleMaskInitialized = true;
+			}
+
+			if ((moduleMask & (1L << moduleId)) == 0) {
+				return false;
+			}
+		} else if (!isModuleEnabled(moduleType)) {
+			return false;
+		}
+
+		// 进程级别的自适应熔断，熔断后的模块按采样间隔检测
+		if (RASPCircuitBreaker.isEnabled() && !RASPCircuitBreaker.allow(moduleId)) {
+			return false;
+		}
+
+		return !isProcessTimeout();
+	}
+
+	/**
+	 * 计算当前请求开启的模块掩码
+	 *
+	 * @return 模块掩码
+	 */
+	protected long createModuleMask() {
+		RASPAppProperties appProperties = getAppProperties();
+
+		// 检查 IP 白名单
+		if (isIpWhitelist()) {
+			return 0;
+		}
+
+		long mask = appProperties.getOpenModuleMask();
+
+		// 检测是否是白名单URL
+		if (isWhitelist()) {
+			// 白名单攻击类型
+			String[] attackTypeWhitelist = getAttackTypeWhitelist();
+
+			if (attackTypeWhitelist.length == 0) {
+				return 0;
+			}
+
+			// 不处理指定类型的攻击
+			for (String type : attackTypeWhitelist) {
+				mask &= ~RASPModuleType.findModuleMask(type);
+			}
+		}
+
+		return mask;
+	}
+
+	/**
+	 * 请求路径或请求IP改变后需要重新计算模块掩码
+	 */
+	protected void resetModuleMask() {
+		this.moduleMaskInitialized = false;
+	}
+
+	/**
+	 * 检测模块是否开启，仅用于模块ID超过MAX_MASK_MODULE_ID（无法使用掩码）的模块
+	 */
+	private boolean isModuleEnabled(RASPModuleType moduleType) {
 		// 检测是否是白名单URL
 		if (isWhitelist()) {
 			// 白名单攻击类型
@@ -308,35 +488,76 @@ public abstract class RASPContext implements Closeable {
 			}
 		}
 
-		RASPAppProperties appProperties = getAppProperties();
-
 		// 检查 IP 白名单
-		String[] ipWhitelist = appProperties.getIpWhitelist();
-
-		if (ipWhitelist.length > 0 && arrayContains(ipWhitelist, getRequestIP())) {
+		if (isIpWhitelist()) {
 			return false;
 		}
 
 		// 待检测的模块是否开启
-		if (!arrayContains(appProperties.getOpenModules(), moduleType.hashCode())) {
+		return arrayContains(getAppProperties().getOpenModules(), moduleType.hashCode());
+	}
+
+	/**
+	 * 获取解析后的请求IP，同一个请求只解析一次
+	 *
+	 * @return IPv4返回4字节，IPv6返回16字节，无法解析时返回null
+	 */
+	public byte[] getRequestIPAddress() {
+		if (!requestIPParsed) {
+			this.requestIPAddress = RASPIPSet.parseIP(getRequestIP());
+			this.requestIPParsed = true;
+		}
+
+		return requestIPAddress;
+	}
+
+	/**
+	 * 请求IP是否是IP白名单
+	 *
+	 * @return 是否是IP白名单
+	 */
+	public boolean isIpWhitelist() {
+		RASPIPSet ipWhitelist = getAppProperties().getIpWhitelistSet();
+
+		return !ipWhitelist.isEmpty() && ipWhitelist.contains(getRequestIPAddress(), getRequestIP());
+	}
+
+	/**
+	 * 请求IP是否是IP黑名单
+	 *
+	 * @return 是否是IP黑名单
+	 */
+	public boolean isIpBlacklist() {
+		RASPIPSet ipBlacklist = getAppProperties().getIpBlacklistSet();
+
+		return !ipBlacklist.isEmpty() && ipBlacklist.contains(getRequestIPAddress(), getRequestIP());
+	}
+
+	/**
+	 * 检测RASP模块处理时间是否触发熔断，触发熔断后禁用RASP模块检测
+	 *
+	 * @return 是否触发熔断
+	 */
+	protected boolean isProcessTimeout() {
+		// RASP检测时间熔断配置
+		int timeout = getAppProperties().getRaspProcessTimeout();
+
+		if (timeout <= 0) {
 			return false;
 		}
 
 		// 计算RASP已消耗的时间（ns -> ms）
 		long timeInterval = (nanoTime() - getRequestStartNanoTime()) / 1000000;
 
-		// RASP检测时间熔断配置
-		int timeout = appProperties.getRaspProcessTimeout();
-
 		// 检测RASP模块处理时间是否触发熔断（ms）
-		if (timeout > 0 && timeInterval > timeout) {
+		if (timeInterval > timeout) {
 			// 触发RASP熔断机制后禁用RASP模块检测
 			this.setModuleDefense(false);
 
-			return false;
+			return true;
 		}
 
-		return true;
+		return false;
 	}
 
 	/**
@@ -358,6 +579,52 @@ public abstract class RASPContext implements Closeable {
 		return contextName;
 	}
 
+	/**
+	 * 累加RASP在当前请求中的自身耗时
+	 *
+	 * @param nanos 耗时（纳秒）
+	 */
+	public void addRASPNanoTime(long nanos) {
+		this.raspNanoTime += nanos;
+	}
+
+	/**
+	 * 获取RASP在当前请求中的自身耗时：创建RASP上下文和Http请求过滤、防御模块检测、清除RASP上下文的耗时
+	 *
+	 * @return RASP自身耗时（纳秒）
+	 */
+	public long getRASPNanoTime() {
+		return raspNanoTime;
+	}
+
+	/**
+	 * 记录防御模块的检测耗时（自适应熔断、调用统计和RASP自身耗时），防御模块在检测结束后调用
+	 *
+	 * @param moduleType 模块类型
+	 * @param startNanos 检测开始时间（System.nanoTime()）
+	 * @param blocked    是否拦截
+	 */
+	public void recordModule(RASPModuleType moduleType, long startNanos, boolean blocked) {
+		boolean metrics = RASPMetrics.isMetricsEnabled();
+		boolean breaker = RASPCircuitBreaker.isEnabled();
+
+		if (!metrics && !breaker) {
+			return;
+		}
+
+		long elapsed = nanoTime() - startNanos;
+
+		this.raspNanoTime += elapsed;
+
+		if (breaker) {
+			RASPCircuitBreaker.recordTime(moduleType.getModuleId(), elapsed);
+		}
+
+		if (metrics) {
+			RASPMetrics.recordModuleTime(moduleType, elapsed, blocked);
+		}
+	}
+
 	/**
 	 * RASP 处理请求的开始时间戳
 	 *
@@ -489,6 +756,29 @@ public abstract class RASPContext implements Closeable {
 
 		// 标记RASP上下文已关闭
 		this.contextClosed = true;
+
+		// 记录请求耗时，用于计算RASP耗时占比
+		if (RASPCircuitBreaker.isEnabled()) {
+			RASPCircuitBreaker.recordRequest(nanoTime() - requestStartNanoTime);
+		}
+
+		// 记录请求的RASP自身耗时分布
+		if (RASPMetrics.isMetricsEnabled()) {
+			RASPMetrics.recordRequest(raspNanoTime);
+		}
+
+		// 清空并归还RASP上下文容器，关闭后的RASP上下文不允许再访问attributes、attacks和请求缓存，
+		// 已传递到其他线程的RASP上下文仍可能被访问，只放弃容器，不清空
+		if (arena != null) {
+			RASPContextArena contextArena = arena;
+			this.arena = null;
+
+			if (published) {
+				contextArena.discard();
+			} else {
+				contextArena.release();
+			}
+		}
 	}
 
 }
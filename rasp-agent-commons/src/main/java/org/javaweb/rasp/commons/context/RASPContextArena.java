@@ -0,0 +1,114 @@
+package org.javaweb.rasp.commons.context;
+
+import org.javaweb.rasp.commons.attack.RASPAttackInfo;
+import org.javaweb.rasp.commons.cache.RASPRequestCached;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.javaweb.rasp.commons.config.RASPConfiguration.AGENT_PROPERTIES;
+
+/**
+ * 线程级别的RASP上下文容器，开启context_recycle后同一个工作线程中的请求复用RASPContext的attributes、
+ * attacks和RASPRequestCached，RASPContext.close时清空容器并归还，下一次请求直接使用。
+ * <p>
+ * 每个线程只有一组容器，容器正在被使用（如：嵌套请求或异步请求尚未结束）时RASPContext会创建新的容器。
+ * 异步请求可能在其他线程中关闭RASP上下文，所以容器的使用状态使用volatile标记。
+ * RASP上下文关闭后容器会被下一次请求复用，关闭后不允许再访问RASP上下文中的容器。
+ * 已传递到其他线程（RASPContext.publish）的RASP上下文关闭时不清空容器，当前线程改为使用新的容器。
+ * <p>
+ * 开启inheritable_context（默认）时子线程不调用publish也会继承RASP上下文，无法知道请求结束后是否还有子线程在访问容器，
+ * 所以只有关闭inheritable_context后才会复用容器。
+ */
+public class RASPContextArena {
+
+	/**
+	 * 容器元素数超过该值时不再复用，避免大请求之后长期持有大容量的HashSet
+	 */
+	private static final int MAX_RETAINED_SIZE = 256;
+
+	private static final ThreadLocal<RASPContextArena> THREAD_ARENA = new ThreadLocal<RASPContextArena>() {
+		@Override
+		protected RASPContextArena initialValue() {
+			return new RASPContextArena();
+		}
+	};
+
+	Map<String, Object> attributes = RASPContext.createAttributes();
+
+	Set<RASPAttackInfo> attacks = new HashSet<RASPAttackInfo>();
+
+	RASPRequestCached cachedRequest = new RASPRequestCached();
+
+	/**
+	 * 容器是否正在被RASP上下文使用
+	 */
+	private volatile boolean inUse;
+
+	/**
+	 * 是否开启了RASP上下文容器复用，开启inheritable_context时不复用
+	 *
+	 * @return 是否开启
+	 */
+	public static boolean isEnabled() {
+		return AGENT_PROPERTIES.isContextRecycle() && !AGENT_PROPERTIES.isInheritableContext();
+	}
+
+	/**
+	 * 获取当前线程中空闲的RASP上下文容器
+	 *
+	 * @return RASP上下文容器，未开启或容器正在被使用时返回null
+	 */
+	static RASPContextArena acquire() {
+		if (!isEnabled()) {
+			return null;
+		}
+
+		RASPContextArena arena = THREAD_ARENA.get();
+
+		if (arena.inUse) {
+			return null;
+		}
+
+		arena.inUse = true;
+
+		return arena;
+	}
+
+	/**
+	 * 清空并归还RASP上下文容器
+	 */
+	void release() {
+		attributes.clear();
+
+		if (attacks.size() > MAX_RETAINED_SIZE) {
+			this.attacks = new HashSet<RASPAttackInfo>();
+		} else {
+			attacks.clear();
+		}
+
+		if (cachedRequest.getCachedParameter().size() > MAX_RETAINED_SIZE) {
+			this.cachedRequest = new RASPRequestCached();
+		} else {
+			cachedRequest.reset();
+		}
+
+		// volatile写，保证在其他线程中关闭RASP上下文时，清空容器的操作对工作线程可见
+		this.inUse = false;
+	}
+
+	/**
+	 * 放弃RASP上下文正在使用的容器，已传递到其他线程的RASP上下文关闭后其他线程可能仍在访问这些容器，
+	 * 所以不能清空或复用，当前线程创建新的容器给下一次请求使用
+	 */
+	void discard() {
+		this.attributes = RASPContext.createAttributes();
+		this.attacks = new HashSet<RASPAttackInfo>();
+		this.cachedRequest = new RASPRequestCached();
+
+		// volatile写，保证新的容器对工作线程可见
+		this.inUse = false;
+	}
+
+}
@@ -2,13 +2,16 @@ package org.javaweb.rasp.commons.context;
 
 import org.javaweb.rasp.commons.MethodHookEvent;
 import org.javaweb.rasp.commons.RASPCallback;
+import org.javaweb.rasp.commons.metrics.RASPMetrics;
 
 import java.rasp.proxy.loader.HookResult;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static java.lang.System.nanoTime;
 import static java.rasp.proxy.loader.HookResultType.RETURN;
+import static org.javaweb.rasp.commons.config.RASPConfiguration.AGENT_PROPERTIES;
 import static org.javaweb.rasp.commons.constants.RASPConstants.DEFAULT_STRING_RESULT;
 import static org.javaweb.rasp.commons.context.RASPRequestContextManager.*;
 import static org.javaweb.rasp.commons.log.RASPLogger.errorLog;
@@ -17,7 +20,10 @@ public class RASPContextBuilder {
 
 	public static AtomicBoolean adapterInjected = new AtomicBoolean(false);
 
-	private static final Map<String, AtomicBoolean> APP_INIT_MAP = new ConcurrentHashMap<String, AtomicBoolean>();
+	/**
+	 * 已注册初始化的Web应用，key为Web应用Context名称，使用putIfAbsent保证每个Web应用只初始化一次
+	 */
+	private static final ConcurrentMap<String, Boolean> APP_INIT_MAP = new ConcurrentHashMap<String, Boolean>();
 
 	/**
 	 * 创建RASP上下文
@@ -53,19 +59,19 @@ public class RASPContextBuilder {
 
 				String contextName = context.getContextName();
 
-				// App第一次访问时需要初始化
-				if (!APP_INIT_MAP.containsKey(contextName)) {
-					APP_INIT_MAP.put(contextName, new AtomicBoolean(false));
-
-					if (APP_INIT_MAP.get(contextName).compareAndSet(false, true)) {
-						// 初始化App
-						appInitialize(context, e, loader);
-					}
+				// App第一次访问时需要初始化，已注册初始化的App只需要一次无锁的ConcurrentHashMap查询
+				if (APP_INIT_MAP.get(contextName) == null) {
+					initApp(contextName, context, e, loader);
 				}
 
 				// 加载Http安全校验模块
 				HookResult<?> result = requestFilter(context, e);
 
+				// 记录创建RASP上下文和Http请求过滤的耗时
+				if (RASPMetrics.isMetricsEnabled()) {
+					context.addRASPNanoTime(nanoTime() - context.getRequestStartNanoTime());
+				}
+
 				if (result.getRASPHookResultType() != RETURN) {
 					return result;
 				}
@@ -75,6 +81,28 @@ public class RASPContextBuilder {
 		return DEFAULT_STRING_RESULT;
 	}
 
+	/**
+	 * 初始化Web应用，多个线程同时访问同一个Web应用时只有注册成功的线程会创建初始化任务并执行初始化。
+	 * 开启app_init_async后在后台线程中初始化，不阻塞Web应用的第一次请求，后台线程使用复制的RASP上下文和Hook事件，
+	 * 不持有请求的RASP上下文
+	 */
+	private static void initApp(String contextName, RASPContext context, MethodHookEvent e, ClassLoader loader) {
+		if (APP_INIT_MAP.putIfAbsent(contextName, Boolean.TRUE) != null) {
+			return;
+		}
+
+		if (!AGENT_PROPERTIES.isAppInitAsync()) {
+			new AppInit(context, e, loader).run();
+
+			return;
+		}
+
+		AppInit init   = new AppInit(new RASPAppInitContext(context), e.detach(), loader);
+		Thread  thread = new Thread(init, "RASP-AppInit-" + contextName);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
 	private static RASPContext createAdapter(MethodHookEvent e, ClassLoader loader, RASPCallback<RASPContext> call) {
 		try {
 			Object thisObject = e.getThisObject();
@@ -102,4 +130,34 @@ public class RASPContextBuilder {
 		}
 	}
 
+	private static final class AppInit implements Runnable {
+
+		private RASPContext context;
+
+		private MethodHookEvent event;
+
+		private ClassLoader loader;
+
+		AppInit(RASPContext context, MethodHookEvent event, ClassLoader loader) {
+			this.context = context;
+			this.event = event;
+			this.loader = loader;
+		}
+
+		@Override
+		public void run() {
+			try {
+				appInitialize(context, event, loader);
+			} catch (Exception e) {
+				errorLog("初始化Web应用：" + context.getContextName() + "异常：", e);
+			} finally {
+				// 初始化完成后不再持有第一次请求的对象
+				this.context = null;
+				this.event = null;
+				this.loader = null;
+			}
+		}
+
+	}
+
 }
@@ -0,0 +1,162 @@
+package org.javaweb.rasp.commons.context;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.javaweb.rasp.commons.context.RASPRequestContextManager.*;
+
+/**
+ * RASP上下文显式传递工具，关闭inheritable_context后，异步任务需要使用该类包装才能在其他线程中检测当前请求。
+ * <p>
+ * 包装时捕获调用线程中的RASP上下文，任务执行时绑定到执行线程中，任务结束后恢复执行线程原来的RASP上下文；
+ * 任务执行时如果请求已经结束（RASP上下文已关闭），不会再绑定RASP上下文。
+ * 包装任务时会调用{@link RASPContext#publish()}，将RASP上下文的属性存储转换为线程安全的ConcurrentHashMap。
+ */
+public class RASPContextPropagation {
+
+	/**
+	 * 包装Runnable，当前线程中不存在RASP上下文时直接返回原任务
+	 *
+	 * @param task 异步任务
+	 * @return 传递RASP上下文的任务
+	 */
+	public static Runnable wrap(Runnable task) {
+		RASPContext context = getContext();
+
+		if (context == null || task instanceof ContextRunnable) {
+			return task;
+		}
+
+		context.publish();
+
+		return new ContextRunnable(task, context);
+	}
+
+	/**
+	 * 包装Callable，当前线程中不存在RASP上下文时直接返回原任务
+	 *
+	 * @param task 异步任务
+	 * @param <T>  返回值类型
+	 * @return 传递RASP上下文的任务
+	 */
+	public static <T> Callable<T> wrap(Callable<T> task) {
+		RASPContext context = getContext();
+
+		if (context == null || task instanceof ContextCallable) {
+			return task;
+		}
+
+		context.publish();
+
+		return new ContextCallable<T>(task, context);
+	}
+
+	/**
+	 * 包装线程池，提交到线程池中的所有任务都会传递提交线程中的RASP上下文
+	 *
+	 * @param executor 线程池
+	 * @return 传递RASP上下文的线程池
+	 */
+	public static ExecutorService wrap(ExecutorService executor) {
+		if (executor instanceof ContextExecutorService) {
+			return executor;
+		}
+
+		return new ContextExecutorService(executor);
+	}
+
+	private static final class ContextRunnable implements Runnable {
+
+		private final Runnable task;
+
+		private final RASPContext context;
+
+		ContextRunnable(Runnable task, RASPContext context) {
+			this.task = task;
+			this.context = context;
+		}
+
+		@Override
+		public void run() {
+			RASPContext previous = attachContext(context);
+
+			try {
+				task.run();
+			} finally {
+				restoreContext(previous);
+			}
+		}
+
+	}
+
+	private static final class ContextCallable<T> implements Callable<T> {
+
+		private final Callable<T> task;
+
+		private final RASPContext context;
+
+		ContextCallable(Callable<T> task, RASPContext context) {
+			this.task = task;
+			this.context = context;
+		}
+
+		@Override
+		public T call() throws Exception {
+			RASPContext previous = attachContext(context);
+
+			try {
+				return task.call();
+			} finally {
+				restoreContext(previous);
+			}
+		}
+
+	}
+
+	/**
+	 * submit、invokeAll、invokeAny最终都会调用execute，只需要在execute中包装任务
+	 */
+	private static final class ContextExecutorService extends AbstractExecutorService {
+
+		private final ExecutorService executor;
+
+		ContextExecutorService(ExecutorService executor) {
+			this.executor = executor;
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			executor.execute(wrap(command));
+		}
+
+		@Override
+		public void shutdown() {
+			executor.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return executor.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return executor.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return executor.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return executor.awaitTermination(timeout, unit);
+		}
+
+	}
+
+}
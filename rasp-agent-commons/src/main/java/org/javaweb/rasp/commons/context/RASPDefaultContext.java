@@ -2,7 +2,6 @@ package org.javaweb.rasp.commons.context;
 
 import org.javaweb.rasp.commons.MethodHookEvent;
 import org.javaweb.rasp.commons.config.RASPWhitelist;
-import org.javaweb.rasp.commons.utils.StringUtils;
 
 import java.net.InetSocketAddress;
 import java.net.Socket;
@@ -37,7 +36,10 @@ public abstract class RASPDefaultContext extends RASPContext {
 	 */
 	protected boolean whitelist = true;
 
-	private String attackTypeWhitelist;
+	/**
+	 * 白名单攻击类型
+	 */
+	private String[] attackTypeWhitelist = new String[0];
 
 	public RASPDefaultContext(MethodHookEvent event, String requestIP, String serverIP, int serverPort) {
 		super(event);
@@ -80,7 +82,10 @@ public abstract class RASPDefaultContext extends RASPContext {
 		this.requestPath = requestPath;
 		int index = getWhitelistIndexOfRequest(this);
 		this.whitelist = index >= 0;
-		this.attackTypeWhitelist = RASPWhitelist.getAttackTypeWhitelist(this, index);
+		this.attackTypeWhitelist = RASPWhitelist.getAttackTypeWhitelists(this, index);
+
+		// 请求路径改变后需要重新计算模块掩码
+		resetModuleMask();
 	}
 
 	@Override
@@ -95,9 +100,6 @@ public abstract class RASPDefaultContext extends RASPContext {
 
 	@Override
 	public String[] getAttackTypeWhitelist() {
-		if (StringUtils.isEmpty(attackTypeWhitelist)) {
-			return new String[0];
-		}
-		return attackTypeWhitelist.split(",");
+		return attackTypeWhitelist;
 	}
 }
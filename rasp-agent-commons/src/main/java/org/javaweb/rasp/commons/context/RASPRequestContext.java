@@ -2,7 +2,6 @@ package org.javaweb.rasp.commons.context;
 
 import org.javaweb.rasp.commons.MethodHookEvent;
 import org.javaweb.rasp.commons.config.RASPWhitelist;
-import org.javaweb.rasp.commons.utils.StringUtils;
 
 import static org.javaweb.rasp.commons.config.RASPWhitelist.getWhitelistIndexOfRequest;
 
@@ -21,14 +20,14 @@ public abstract class RASPRequestContext extends RASPContext {
 	/**
 	 * 白名单攻击类型
 	 */
-	private final String attackTypeWhitelist;
+	private final String[] attackTypeWhitelist;
 
 	public RASPRequestContext(MethodHookEvent event, String contextPath, String requestPath) {
 		super(event, contextPath);
 		this.requestPath = requestPath;
 		int index = getWhitelistIndexOfRequest(this);
 		this.whitelist = index >= 0;
-		this.attackTypeWhitelist = RASPWhitelist.getAttackTypeWhitelist(this, index);
+		this.attackTypeWhitelist = RASPWhitelist.getAttackTypeWhitelists(this, index);
 	}
 
 	/**
@@ -56,9 +55,6 @@ public abstract class RASPRequestContext extends RASPContext {
 	 * 获取白名单 攻击类型
 	 */
 	public String[] getAttackTypeWhitelist() {
-		if (StringUtils.isEmpty(attackTypeWhitelist)) {
-			return new String[0];
-		}
-		return attackTypeWhitelist.split(",");
+		return attackTypeWhitelist;
 	}
 }
@@ -1,12 +1,14 @@
 package org.javaweb.rasp.commons.context;
 
 import org.javaweb.rasp.commons.*;
+import org.javaweb.rasp.commons.metrics.RASPMetrics;
 
 import java.net.URL;
 import java.rasp.proxy.loader.HookResult;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import static java.lang.System.nanoTime;
 import static java.rasp.proxy.loader.HookResultType.RETURN;
 import static org.javaweb.rasp.commons.config.RASPConfiguration.*;
 import static org.javaweb.rasp.commons.constants.RASPConstants.DEFAULT_HOOK_RESULT;
@@ -41,9 +43,11 @@ public class RASPRequestContextManager {
 	}
 
 	/**
-	 * 缓存在当前线程中的RASPContext对象
+	 * 缓存在当前线程中的RASPContext对象，关闭inheritable_context后子线程不再自动继承RASP上下文，
+	 * 需要使用RASPContextPropagation显式传递（修改该配置需要重启应用）
 	 */
-	private static final ThreadLocal<RASPContext> RASP_CONTEXT = new InheritableThreadLocal<RASPContext>();
+	private static final ThreadLocal<RASPContext> RASP_CONTEXT = AGENT_PROPERTIES.isInheritableContext() ?
+			new InheritableThreadLocal<RASPContext>() : new ThreadLocal<RASPContext>();
 
 	/**
 	 * RASP请求过滤器
@@ -66,7 +70,47 @@ public class RASPRequestContextManager {
 	 * @return RASP上下文
 	 */
 	public static RASPContext getContext() {
-		return RASP_CONTEXT.get();
+		RASPContext context = RASP_CONTEXT.get();
+
+		// 子线程继承或线程池线程遗留的RASP上下文在请求结束后已关闭，直接移除避免继续引用请求缓存数据
+		if (context != null && context.isContextClosed()) {
+			RASP_CONTEXT.remove();
+
+			return null;
+		}
+
+		return context;
+	}
+
+	/**
+	 * 将RASP上下文绑定到当前线程，已关闭的RASP上下文不会被绑定
+	 *
+	 * @param context RASP上下文
+	 * @return 当前线程原来的RASP上下文
+	 */
+	static RASPContext attachContext(RASPContext context) {
+		RASPContext previous = RASP_CONTEXT.get();
+
+		if (context == null || context.isContextClosed()) {
+			RASP_CONTEXT.remove();
+		} else {
+			RASP_CONTEXT.set(context);
+		}
+
+		return previous;
+	}
+
+	/**
+	 * 恢复当前线程原来的RASP上下文
+	 *
+	 * @param previous attachContext返回的RASP上下文
+	 */
+	static void restoreContext(RASPContext previous) {
+		if (previous == null) {
+			RASP_CONTEXT.remove();
+		} else {
+			RASP_CONTEXT.set(previous);
+		}
 	}
 
 	public static void adapterInitialize(RASPContext context, MethodHookEvent event, ClassLoader classLoader) {
@@ -158,9 +202,7 @@ public class RASPRequestContextManager {
 	 * @return 是否存在HTTP请求
 	 */
 	public static boolean hasRequestContext() {
-		RASPContext context = getContext();
-
-		return !(context == null || context.isContextClosed());
+		return getContext() != null;
 	}
 
 	/**
@@ -171,11 +213,22 @@ public class RASPRequestContextManager {
 	 * @return Hook返回值
 	 */
 	public static HookResult<?> requestFilter(RASPContext context, MethodHookEvent event) {
+		boolean metrics = RASPMetrics.isMetricsEnabled();
+
 		for (RASPRequestFilter module : REQUEST_FILTER) {
 			try {
+				long startNanos = metrics ? nanoTime() : 0;
+
 				// 调用安全模块的检测方法
 				HookResult<?> result = module.filter(context, event);
 
+				// 记录Http请求过滤模块的调用统计
+				if (metrics) {
+					RASPMetrics.getModuleCounter(module.getClass().getName(), -1).record(
+							nanoTime() - startNanos, result.getRASPHookResultType() != RETURN
+					);
+				}
+
 				// 如果防御模块检测结果为THROW，需要终止程序执行
 				if (result.getRASPHookResultType() != RETURN) {
 					return result;
@@ -213,6 +266,8 @@ public class RASPRequestContextManager {
 	}
 
 	public static void cleanContext(MethodHookEvent event, RASPContext context) {
+		long startNanos = RASPMetrics.isMetricsEnabled() ? nanoTime() : 0;
+
 		try {
 			if (AGENT_LOGGER.isDebugEnabled()) {
 				AGENT_LOGGER.debug("{}正在清除RASPContext，请求路径：{}", AGENT_NAME, context.getRequestPath());
@@ -224,6 +279,11 @@ public class RASPRequestContextManager {
 			// 记录攻击和访问日志
 			context.addLogs();
 
+			// 记录清除RASP上下文的耗时，访问日志中的RASP耗时不包括该部分
+			if (startNanos != 0) {
+				context.addRASPNanoTime(nanoTime() - startNanos);
+			}
+
 			// 释放context引用资源
 			context.close();
 		} finally {
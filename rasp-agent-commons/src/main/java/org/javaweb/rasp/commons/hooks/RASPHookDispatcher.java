@@ -0,0 +1,96 @@
+package org.javaweb.rasp.commons.hooks;
+
+import org.javaweb.rasp.commons.MethodHookEvent;
+import org.javaweb.rasp.commons.hooks.RASPHookRegistry.HookEntry;
+import org.javaweb.rasp.commons.metrics.RASPMetrics;
+
+import java.rasp.proxy.loader.HookResult;
+
+import static java.lang.System.nanoTime;
+import static java.rasp.proxy.loader.HookResultType.RETURN;
+import static org.javaweb.rasp.commons.constants.RASPConstants.DEFAULT_HOOK_RESULT;
+import static org.javaweb.rasp.commons.hooks.RASPHookRegistry.getHook;
+import static org.javaweb.rasp.commons.hooks.RASPMethodHook.*;
+
+/**
+ * Hook事件分发，Hook代理通过Hook HASH（HookEvent.hookHash）调用RASPHookRegistry中注册的RASPMethodAdvice，
+ * 开启调用统计（metrics=true）后记录每个Hook的调用次数、耗时和拦截次数，RASPMethodAdvice无需做任何修改。
+ * 分发的事件类型使用RASPMethodHook中的事件掩码（ON_METHOD_ENTER、ON_METHOD_EXIT、ON_METHOD_THROW）表示。
+ * <p>
+ * 字节码编辑器（不在SDK中）生成的Hook代码需要遵守以下约定：
+ * <ul>
+ * <li>hookHash必须使用{@link java.rasp.proxy.loader.HookEvent#hookHash}计算，参数依次为Hook处理类名、
+ * RASPMethodHook中的类名（onClass或className）、方法名和methodArgsDesc，与RASPHookRegistry注册Hook时一致；</li>
+ * <li>Hook事件中的类名、方法名和方法描述符必须是被Hook方法的实际值，hookHash冲突时用于区分Hook。</li>
+ * </ul>
+ */
+public class RASPHookDispatcher {
+
+	/**
+	 * 分发方法进入事件
+	 *
+	 * @param hookHash 使用{@link java.rasp.proxy.loader.HookEvent#hookHash}计算的Hook HASH
+	 * @param event    Hook事件
+	 * @return Hook处理结果
+	 */
+	public static HookResult<?> onMethodEnter(int hookHash, MethodHookEvent event) {
+		return dispatch(hookHash, event, ON_METHOD_ENTER);
+	}
+
+	/**
+	 * 分发方法退出事件
+	 *
+	 * @param hookHash 使用{@link java.rasp.proxy.loader.HookEvent#hookHash}计算的Hook HASH
+	 * @param event    Hook事件
+	 * @return Hook处理结果
+	 */
+	public static HookResult<?> onMethodExit(int hookHash, MethodHookEvent event) {
+		return dispatch(hookHash, event, ON_METHOD_EXIT);
+	}
+
+	/**
+	 * 分发方法异常事件
+	 *
+	 * @param hookHash 使用{@link java.rasp.proxy.loader.HookEvent#hookHash}计算的Hook HASH
+	 * @param event    Hook事件
+	 * @return Hook处理结果
+	 */
+	public static HookResult<?> onMethodThrow(int hookHash, MethodHookEvent event) {
+		return dispatch(hookHash, event, ON_METHOD_THROW);
+	}
+
+	private static HookResult<?> dispatch(int hookHash, MethodHookEvent event, int type) {
+		HookEntry hook = getHook(hookHash, event);
+
+		if (hook == null) {
+			return DEFAULT_HOOK_RESULT;
+		}
+
+		RASPMethodAdvice advice = hook.advice;
+
+		// 未开启调用统计时直接调用，不需要计时
+		if (!RASPMetrics.isMetricsEnabled()) {
+			return invoke(advice, event, type);
+		}
+
+		long          startNanos = nanoTime();
+		HookResult<?> result     = null;
+
+		try {
+			return result = invoke(advice, event, type);
+		} finally {
+			hook.counter.record(nanoTime() - startNanos, result != null && result.getRASPHookResultType() != RETURN);
+		}
+	}
+
+	private static HookResult<?> invoke(RASPMethodAdvice advice, MethodHookEvent event, int type) {
+		if (type == ON_METHOD_ENTER) {
+			return advice.onMethodEnter(event);
+		} else if (type == ON_METHOD_EXIT) {
+			return advice.onMethodExit(event);
+		}
+
+		return advice.onMethodThrow(event);
+	}
+
+}
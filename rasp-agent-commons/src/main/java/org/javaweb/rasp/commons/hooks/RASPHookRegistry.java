@@ -0,0 +1,419 @@
+package org.javaweb.rasp.commons.hooks;
+
+import org.javaweb.rasp.commons.MethodHookEvent;
+import org.javaweb.rasp.commons.metrics.RASPMetricsCounter;
+
+import java.lang.reflect.Method;
+import java.rasp.proxy.loader.HookEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.javaweb.rasp.commons.hooks.RASPMethodHook.*;
+import static org.javaweb.rasp.commons.log.RASPLogger.errorLog;
+
+/**
+ * RASP Hook分发表，使用Hook HASH（HookEvent.hookHash）索引所有被@RASPMethodHook注解的RASPMethodAdvice，
+ * 分发表使用开放寻址的int -> RASPMethodAdvice数组实现，Hook代理分发事件时只需要一次数组探测，
+ * Hook HASH冲突的Hook组成链表，分发时使用Hook事件的类名、方法名和方法描述符区分。
+ * <p>
+ * 分发表创建后不再修改，重新加载Hook时会创建新的分发表并整体替换，读取分发表时无需加锁。
+ * 每个Hook在分发表中还存放了一个调用统计（RASPMetricsCounter），用于统计Hook的调用次数和耗时。
+ */
+public class RASPHookRegistry {
+
+	/**
+	 * 当前使用的分发表
+	 */
+	private static volatile HookTable hookTable = new HookTable(new HookEntry[0]);
+
+	/**
+	 * 计算Hook HASH（{@link HookEvent#hookHash}），字节码编辑器生成Hook代码时必须使用相同的方式计算HookEvent.hookHash，
+	 * 约定见{@link RASPHookDispatcher}
+	 *
+	 * @param adviceClass Hook处理类
+	 * @param hook        Hook注解
+	 * @return Hook HASH
+	 */
+	public static int getHookHash(Class<?> adviceClass, RASPMethodHook hook) {
+		return HookEvent.hookHash(adviceClass.getName(), getHookClassName(hook), hook.methodName(), hook.methodArgsDesc());
+	}
+
+	private static String getHookClassName(RASPMethodHook hook) {
+		return hook.onClass() != void.class ? hook.onClass().getName() : hook.className();
+	}
+
+	/**
+	 * 获取Hook点需要处理的事件掩码，字节码编辑器只需要插入掩码中包含的事件回调代码（方法退出事件不处理时也无需装箱返回值），
+	 * 注解中未配置events时根据Hook处理类重写的onMethodEnter/onMethodExit/onMethodThrow方法自动识别。
+	 * 请求入口Hook在方法退出和异常时需要清除RASP上下文，所以总是返回所有的事件
+	 *
+	 * @param adviceClass Hook处理类
+	 * @param hook        Hook注解
+	 * @return Hook事件掩码，返回0表示Hook处理类没有处理任何事件
+	 */
+	public static int getHookEvents(Class<?> adviceClass, RASPMethodHook hook) {
+		if (hook.requestEntry()) {
+			return ALL_EVENTS;
+		}
+
+		if (hook.events() != AUTO_DETECT_EVENTS) {
+			return hook.events() & ALL_EVENTS;
+		}
+
+		int events = 0;
+
+		if (isOverridden(adviceClass, "onMethodEnter")) {
+			events |= ON_METHOD_ENTER;
+		}
+
+		if (isOverridden(adviceClass, "onMethodExit")) {
+			events |= ON_METHOD_EXIT;
+		}
+
+		if (isOverridden(adviceClass, "onMethodThrow")) {
+			events |= ON_METHOD_THROW;
+		}
+
+		return events;
+	}
+
+	/**
+	 * 检测Hook处理类是否重写了RASPMethodAdvice的事件处理方法
+	 */
+	private static boolean isOverridden(Class<?> adviceClass, String methodName) {
+		try {
+			Method method = adviceClass.getMethod(methodName, MethodHookEvent.class);
+
+			return method.getDeclaringClass() != RASPMethodAdvice.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 通过Hook HASH获取Hook处理类，Hook HASH冲突时返回第一个注册的Hook处理类
+	 *
+	 * @param hookHash Hook HASH
+	 * @return Hook处理类，未注册时返回null
+	 */
+	public static RASPMethodAdvice getAdvice(int hookHash) {
+		HookEntry entry = hookTable.get(hookHash);
+
+		return entry != null ? entry.advice : null;
+	}
+
+	/**
+	 * 通过Hook HASH获取Hook的调用统计，Hook HASH冲突时返回第一个注册的Hook的调用统计
+	 *
+	 * @param hookHash Hook HASH
+	 * @return Hook调用统计，未注册时返回null
+	 */
+	public static RASPMetricsCounter getHookCounter(int hookHash) {
+		HookEntry entry = hookTable.get(hookHash);
+
+		return entry != null ? entry.counter : null;
+	}
+
+	/**
+	 * 通过Hook HASH获取Hook事件对应的Hook，Hook HASH冲突时使用Hook事件的类名、方法名和方法描述符区分
+	 *
+	 * @param hookHash Hook HASH
+	 * @param event    Hook事件
+	 * @return Hook，未注册时返回null
+	 */
+	static HookEntry getHook(int hookHash, MethodHookEvent event) {
+		HookEntry entry = hookTable.get(hookHash);
+
+		if (entry == null || entry.next == null) {
+			return entry;
+		}
+
+		for (HookEntry e = entry; e != null; e = e.next) {
+			if (e.matches(event)) {
+				return e;
+			}
+		}
+
+		return entry;
+	}
+
+	/**
+	 * 获取所有Hook的调用统计
+	 *
+	 * @return Hook调用统计
+	 */
+	public static List<RASPMetricsCounter> getHookCounters() {
+		return new ArrayList<RASPMetricsCounter>(Arrays.asList(hookTable.counters));
+	}
+
+	/**
+	 * 获取已注册的Hook数
+	 *
+	 * @return Hook数
+	 */
+	public static int size() {
+		return hookTable.size;
+	}
+
+	/**
+	 * 使用Hook类重新创建分发表，并替换当前的分发表。传入的类可以是RASPMethodAdvice的实现类，
+	 * 也可以是包含了RASPMethodAdvice内部类的RASPClassHook
+	 *
+	 * @param hookClasses Hook类集合
+	 */
+	public static synchronized void reload(Collection<Class<?>> hookClasses) {
+		List<HookEntry> entries = new ArrayList<HookEntry>();
+
+		for (Class<?> hookClass : hookClasses) {
+			addHookClass(hookClass, entries);
+
+			for (Class<?> innerClass : hookClass.getDeclaredClasses()) {
+				addHookClass(innerClass, entries);
+			}
+		}
+
+		hookTable = new HookTable(entries.toArray(new HookEntry[0]));
+	}
+
+	private static void addHookClass(Class<?> clazz, List<HookEntry> entries) {
+		if (!RASPMethodAdvice.class.isAssignableFrom(clazz)) {
+			return;
+		}
+
+		List<RASPMethodHook> hooks = new ArrayList<RASPMethodHook>();
+		RASPMethodHook       hook  = clazz.getAnnotation(RASPMethodHook.class);
+		RASPMethodHooks      multi = clazz.getAnnotation(RASPMethodHooks.class);
+
+		if (hook != null) {
+			hooks.add(hook);
+		}
+
+		if (multi != null) {
+			for (RASPMethodHook methodHook : multi.value()) {
+				hooks.add(methodHook);
+			}
+		}
+
+		if (hooks.isEmpty()) {
+			return;
+		}
+
+		try {
+			RASPMethodAdvice advice = (RASPMethodAdvice) clazz.newInstance();
+
+			for (RASPMethodHook methodHook : hooks) {
+				int    hash      = getHookHash(clazz, methodHook);
+				String className = getHookClassName(methodHook);
+
+				entries.add(new HookEntry(
+						hash, advice, methodHook,
+						new RASPMetricsCounter(clazz.getName() + "#" + className + "." + methodHook.methodName(), hash)
+				));
+			}
+		} catch (Exception e) {
+			errorLog("创建Hook处理类：" + clazz.getName() + "异常：", e);
+		}
+	}
+
+	/**
+	 * 分发表中的Hook，Hook HASH相同的Hook按注册顺序组成链表
+	 */
+	static final class HookEntry {
+
+		private final int hash;
+
+		final RASPMethodAdvice advice;
+
+		final RASPMetricsCounter counter;
+
+		/**
+		 * 需要Hook的类名，为空时使用superClasses匹配
+		 */
+		private final String className;
+
+		private final boolean classNameRegexp;
+
+		private final String[] superClasses;
+
+		private final String methodName;
+
+		private final boolean methodNameRegexp;
+
+		/**
+		 * 方法参数描述符，为空或使用正则表达式时不参与匹配
+		 */
+		private final String methodArgsDesc;
+
+		private HookEntry next;
+
+		HookEntry(int hash, RASPMethodAdvice advice, RASPMethodHook hook, RASPMetricsCounter counter) {
+			this.hash = hash;
+			this.advice = advice;
+			this.counter = counter;
+			this.className = getHookClassName(hook);
+			this.classNameRegexp = hook.classNameRegexp();
+			this.superClasses = hook.superClasses();
+			this.methodName = hook.methodName();
+			this.methodNameRegexp = hook.methodNameRegexp();
+			this.methodArgsDesc = hook.methodDescRegexp() ? "" : hook.methodArgsDesc();
+		}
+
+		/**
+		 * 检测Hook事件的方法是否是当前Hook的方法，只在Hook HASH冲突时使用
+		 */
+		boolean matches(MethodHookEvent event) {
+			String name = event.getMethodName();
+			String desc = event.getMethodDesc();
+
+			if (name == null || !(methodNameRegexp ? name.matches(methodName) : name.equals(methodName))) {
+				return false;
+			}
+
+			if (!matchesClass(event)) {
+				return false;
+			}
+
+			return methodArgsDesc.length() == 0 || (desc != null && desc.contains(methodArgsDesc));
+		}
+
+		/**
+		 * 检测Hook事件的类是否是当前Hook的类，类名也是Hook HASH的一部分。
+		 * Hook事件的类可能是Hook类的子类，所以类名不同时还需要检测Hook类实例的父类和接口
+		 */
+		private boolean matchesClass(MethodHookEvent event) {
+			String name    = event.getClassName();
+			Object thisObj = event.getThisObject();
+
+			if (name != null) {
+				name = name.replace('/', '.');
+			}
+
+			if (className.length() > 0) {
+				if (classNameRegexp) {
+					return name != null && name.matches(className);
+				}
+
+				return className.equals(name) || isInstance(thisObj, className);
+			}
+
+			for (String superClass : superClasses) {
+				if ("java.lang.Object".equals(superClass) || superClass.equals(name) || isInstance(thisObj, superClass)) {
+					return true;
+				}
+			}
+
+			return superClasses.length == 0;
+		}
+
+		/**
+		 * 检测Hook类实例是否是指定类的实例，static方法的Hook事件中Hook类实例是类名，不检测
+		 */
+		private static boolean isInstance(Object thisObj, String className) {
+			return thisObj != null && !(thisObj instanceof String) && isAssignable(thisObj.getClass(), className);
+		}
+
+		private static boolean isAssignable(Class<?> clazz, String className) {
+			for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+				if (c.getName().equals(className)) {
+					return true;
+				}
+
+				for (Class<?> i : c.getInterfaces()) {
+					if (isAssignable(i, className)) {
+						return true;
+					}
+				}
+			}
+
+			return false;
+		}
+
+	}
+
+	/**
+	 * 不可变的开放寻址（线性探测）分发表，负载因子不超过0.5
+	 */
+	private static final class HookTable {
+
+		private final int[] keys;
+
+		/**
+		 * Hook HASH对应的Hook链表
+		 */
+		private final HookEntry[] values;
+
+		/**
+		 * 按注册顺序存放的调用统计
+		 */
+		private final RASPMetricsCounter[] counters;
+
+		private final int mask;
+
+		private final int size;
+
+		HookTable(HookEntry[] entries) {
+			int capacity = 2;
+
+			while (capacity < entries.length * 2) {
+				capacity <<= 1;
+			}
+
+			this.keys = new int[capacity];
+			this.values = new HookEntry[capacity];
+			this.counters = new RASPMetricsCounter[entries.length];
+			this.mask = capacity - 1;
+			this.size = entries.length;
+
+			for (int i = 0; i < entries.length; i++) {
+				HookEntry entry = entries[i];
+				int       index = mix(entry.hash) & mask;
+
+				counters[i] = entry.counter;
+
+				while (values[index] != null && keys[index] != entry.hash) {
+					index = (index + 1) & mask;
+				}
+
+				if (values[index] == null) {
+					keys[index] = entry.hash;
+					values[index] = entry;
+					continue;
+				}
+
+				// Hook HASH冲突，追加到链表末尾
+				HookEntry last = values[index];
+
+				while (last.next != null) {
+					last = last.next;
+				}
+
+				last.next = entry;
+			}
+		}
+
+		HookEntry get(int hash) {
+			int index = mix(hash) & mask;
+
+			for (HookEntry entry; (entry = values[index]) != null; index = (index + 1) & mask) {
+				if (keys[index] == hash) {
+					return entry;
+				}
+			}
+
+			return null;
+		}
+
+		/**
+		 * 打散Hook HASH的高位，避免相近的hash值落在同一个区域
+		 */
+		private static int mix(int hash) {
+			int h = hash * 0x9E3779B9;
+
+			return h ^ (h >>> 16);
+		}
+
+	}
+
+}
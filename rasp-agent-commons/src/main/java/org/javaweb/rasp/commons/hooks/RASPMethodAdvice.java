@@ -1,6 +1,7 @@
 package org.javaweb.rasp.commons.hooks;
 
 import org.javaweb.rasp.commons.MethodHookEvent;
+import org.javaweb.rasp.commons.context.RASPRequestContextManager;
 
 import java.rasp.proxy.loader.HookResult;
 
@@ -13,6 +14,18 @@ import static org.javaweb.rasp.commons.constants.RASPConstants.DEFAULT_HOOK_RESU
  */
 public class RASPMethodAdvice {
 
+	/**
+	 * Hook方法调用前的预检测，在创建Hook事件（HookEvent、MethodHookEvent）和组装方法参数之前调用，
+	 * 返回false时跳过本次调用的所有Hook事件。该方法在每次Hook方法调用时都会执行，不允许产生任何对象分配，
+	 * 只在有Http请求时才需要检测的Hook（如：requireRequest = false的本地命令执行Hook）可以重写该方法并返回
+	 * {@link RASPRequestContextManager#hasRequestContext()}，以避免后台线程（定时任务、批处理等）的无效开销
+	 *
+	 * @return 是否需要处理当前的Hook方法调用
+	 */
+	public boolean preCheck() {
+		return true;
+	}
+
 	/**
 	 * Hook方法进入调用此方法
 	 *
@@ -11,6 +11,31 @@ import java.lang.annotation.*;
 @Documented
 public @interface RASPMethodHook {
 
+	/**
+	 * 根据RASPMethodAdvice重写的方法自动识别需要处理的Hook事件
+	 */
+	int AUTO_DETECT_EVENTS = 0;
+
+	/**
+	 * 方法进入事件（onMethodEnter）
+	 */
+	int ON_METHOD_ENTER = 1;
+
+	/**
+	 * 方法退出事件（onMethodExit）
+	 */
+	int ON_METHOD_EXIT = 1 << 1;
+
+	/**
+	 * 方法异常事件（onMethodThrow）
+	 */
+	int ON_METHOD_THROW = 1 << 2;
+
+	/**
+	 * 所有的Hook事件
+	 */
+	int ALL_EVENTS = ON_METHOD_ENTER | ON_METHOD_EXIT | ON_METHOD_THROW;
+
 	/**
 	 * 需要Hook的类名
 	 */
@@ -94,4 +119,12 @@ public @interface RASPMethodHook {
 	 */
 	boolean methodDescRegexp() default false;
 
+	/**
+	 * 需要处理的Hook事件掩码，如：ON_METHOD_ENTER | ON_METHOD_EXIT，字节码编辑器只会插入掩码中包含的事件回调代码，
+	 * 默认根据RASPMethodAdvice重写的方法自动识别，请求入口（requestEntry = true）必须处理所有的事件
+	 *
+	 * @return Hook事件掩码
+	 */
+	int events() default AUTO_DETECT_EVENTS;
+
 }
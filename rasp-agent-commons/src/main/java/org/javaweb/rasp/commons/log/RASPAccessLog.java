@@ -7,6 +7,8 @@ import java.io.Serializable;
 import java.util.TimeZone;
 
 import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.javaweb.rasp.commons.metrics.RASPMetrics.isMetricsEnabled;
 
 public class RASPAccessLog implements Serializable {
 
@@ -27,10 +29,17 @@ public class RASPAccessLog implements Serializable {
 	@SerializedName("timezone")
 	private final String timezone = TIME_ZONE;
 
+	/**
+	 * RASP在当前请求中的自身耗时（微秒），只在开启调用统计时记录
+	 */
+	@SerializedName("rasp_time")
+	private final Long raspTime;
+
 	public RASPAccessLog(RASPContext context) {
 		this.requestUrl = context.getRequestPath();
 		this.remoteIp = context.getRequestIP();
 		this.requestTime = currentTimeMillis();
+		this.raspTime = isMetricsEnabled() ? NANOSECONDS.toMicros(context.getRASPNanoTime()) : null;
 	}
 
 	public String getRequestUrl() {
@@ -49,4 +58,8 @@ public class RASPAccessLog implements Serializable {
 		return timezone;
 	}
 
+	public Long getRaspTime() {
+		return raspTime;
+	}
+
 }
@@ -20,6 +20,8 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 import static java.lang.Long.MAX_VALUE;
@@ -73,6 +75,52 @@ public class RASPLogger {
 		return logger;
 	}
 
+	/**
+	 * 已创建完成（appender已添加）的logger
+	 */
+	private static final ConcurrentMap<String, Logger> CREATED_LOGGERS = new ConcurrentHashMap<String, Logger>();
+
+	/**
+	 * 获取logger，logger未初始化时创建，检测和创建在同一个锁中完成，
+	 * 多个线程同时第一次获取同一个logger时不会重复添加appender（会导致日志生成重复记录）
+	 *
+	 * @param name     logger名称
+	 * @param file     日志文件，日志目录不存在时自动创建
+	 * @param level    日志级别
+	 * @param pattern  日志格式
+	 * @param fileSize 日志缓冲区大小
+	 * @return logger
+	 */
+	public static Logger getOrCreateRASPLogger(String name, File file, Level level, String pattern, String fileSize) {
+		Logger logger = CREATED_LOGGERS.get(name);
+
+		if (logger != null) {
+			return logger;
+		}
+
+		synchronized (CREATED_LOGGERS) {
+			logger = CREATED_LOGGERS.get(name);
+
+			if (logger == null) {
+				if (hasLogger(name)) {
+					logger = getLogger(name);
+				} else {
+					File logDir = file.getParentFile();
+
+					if (logDir != null && !logDir.exists() && !logDir.mkdirs()) {
+						errorLog("初始化日志对象失败，无法创建目录：{}", logDir);
+					}
+
+					logger = createRASPLogger(name, file, level, pattern, fileSize);
+				}
+
+				CREATED_LOGGERS.put(name, logger);
+			}
+		}
+
+		return logger;
+	}
+
 	/**
 	 * 检测Logger上下文中是否注册了传入的logger
 	 *
@@ -0,0 +1,187 @@
+package org.javaweb.rasp.commons.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 固定内存的对数线性直方图（与HdrHistogram类似），每个2的幂区间划分为16个线性子区间，相对误差不超过1/16，
+ * 记录值的范围为[0, 2^36)纳秒（约68秒），超出范围的值记录在最后一个区间中。
+ * <p>
+ * 该类不是线程安全的，多线程记录时使用{@link RASPHistogramRecorder}，每个线程记录到自己的直方图中，读取时合并。
+ */
+public class RASPHistogram {
+
+	/**
+	 * 每个2的幂区间的子区间位数
+	 */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * 最大记录值的位数
+	 */
+	private static final int MAX_VALUE_BITS = 36;
+
+	private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+
+	/**
+	 * 区间数：[0, 16)每个值一个区间，之后每个2的幂区间16个子区间
+	 */
+	private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+
+	private long totalCount;
+
+	private long totalValue;
+
+	private long maxValue;
+
+	/**
+	 * 记录一个值
+	 *
+	 * @param value 记录值（纳秒）
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+
+		counts[bucketIndex(value)]++;
+		totalCount++;
+		totalValue += value;
+
+		if (value > maxValue) {
+			maxValue = value;
+		}
+	}
+
+	/**
+	 * 将其他直方图的记录合并到当前直方图
+	 *
+	 * @param other 其他直方图
+	 */
+	public void add(RASPHistogram other) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] += other.counts[i];
+		}
+
+		totalCount += other.totalCount;
+		totalValue += other.totalValue;
+
+		if (other.maxValue > maxValue) {
+			maxValue = other.maxValue;
+		}
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = 0;
+		}
+
+		totalCount = 0;
+		totalValue = 0;
+		maxValue = 0;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * 获取所有记录值的总和
+	 *
+	 * @return 记录值总和（纳秒）
+	 */
+	public long getTotalValue() {
+		return totalValue;
+	}
+
+	public long getMaxValue() {
+		return maxValue;
+	}
+
+	public long getMean() {
+		return totalCount > 0 ? totalValue / totalCount : 0;
+	}
+
+	/**
+	 * 获取百分位数，返回值所在区间的上限（不超过最大记录值）
+	 *
+	 * @param percentile 百分位（0 - 100）
+	 * @return 百分位数
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (totalCount == 0) {
+			return 0;
+		}
+
+		long target = (long) Math.ceil(totalCount * Math.min(percentile, 100) / 100);
+		long count  = 0;
+
+		if (target < 1) {
+			target = 1;
+		}
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			count += counts[i];
+
+			if (count >= target) {
+				return Math.min(bucketUpperBound(i), maxValue);
+			}
+		}
+
+		return maxValue;
+	}
+
+	/**
+	 * 转换为Map，用于输出JSON（单位：纳秒）
+	 *
+	 * @return 直方图统计
+	 */
+	public Map<String, Object> toMap() {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+
+		map.put("count", totalCount);
+		map.put("mean", getMean());
+		map.put("p50", getValueAtPercentile(50));
+		map.put("p90", getValueAtPercentile(90));
+		map.put("p99", getValueAtPercentile(99));
+		map.put("p999", getValueAtPercentile(99.9));
+		map.put("max", maxValue);
+
+		return map;
+	}
+
+	private static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+
+		if (value > MAX_VALUE) {
+			value = MAX_VALUE;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subIndex = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subIndex;
+	}
+
+	/**
+	 * 获取区间的上限（包含）
+	 */
+	private static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+
+		int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		int subIndex = index & (SUB_BUCKET_COUNT - 1);
+		int shift    = exponent - SUB_BUCKET_BITS;
+
+		return ((long) (SUB_BUCKET_COUNT + subIndex + 1) << shift) - 1;
+	}
+
+}
@@ -0,0 +1,107 @@
+package org.javaweb.rasp.commons.metrics;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 多线程直方图记录器，每个线程记录到自己的RASPHistogram中（记录时不需要加锁或CAS），读取时合并所有线程的直方图。
+ * <p>
+ * 读取时不会暂停记录线程，合并结果不是精确的快照。线程结束后，该线程的直方图在下一次读取时合并到retired直方图中并释放。
+ */
+public class RASPHistogramRecorder {
+
+	private final String name;
+
+	private final ThreadLocal<RASPHistogram> threadHistogram = new ThreadLocal<RASPHistogram>() {
+		@Override
+		protected RASPHistogram initialValue() {
+			return register();
+		}
+	};
+
+	/**
+	 * 所有线程的直方图
+	 */
+	private final List<ThreadHistogram> histograms = new ArrayList<ThreadHistogram>();
+
+	/**
+	 * 已结束线程的直方图
+	 */
+	private final RASPHistogram retired = new RASPHistogram();
+
+	public RASPHistogramRecorder(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * 记录一个值到当前线程的直方图
+	 *
+	 * @param value 记录值（纳秒）
+	 */
+	public void record(long value) {
+		threadHistogram.get().record(value);
+	}
+
+	/**
+	 * 合并所有线程的直方图
+	 *
+	 * @return 合并后的直方图
+	 */
+	public synchronized RASPHistogram snapshot() {
+		RASPHistogram histogram = new RASPHistogram();
+
+		for (Iterator<ThreadHistogram> it = histograms.iterator(); it.hasNext(); ) {
+			ThreadHistogram threadHistogram = it.next();
+			Thread          thread          = threadHistogram.thread.get();
+
+			if (thread == null || !thread.isAlive()) {
+				retired.add(threadHistogram.histogram);
+				it.remove();
+			} else {
+				histogram.add(threadHistogram.histogram);
+			}
+		}
+
+		histogram.add(retired);
+
+		return histogram;
+	}
+
+	/**
+	 * 清空所有线程的直方图，记录线程正在记录的值可能会丢失
+	 */
+	public synchronized void reset() {
+		for (ThreadHistogram threadHistogram : histograms) {
+			threadHistogram.histogram.reset();
+		}
+
+		retired.reset();
+	}
+
+	private synchronized RASPHistogram register() {
+		RASPHistogram histogram = new RASPHistogram();
+		histograms.add(new ThreadHistogram(Thread.currentThread(), histogram));
+
+		return histogram;
+	}
+
+	private static final class ThreadHistogram {
+
+		private final WeakReference<Thread> thread;
+
+		private final RASPHistogram histogram;
+
+		ThreadHistogram(Thread thread, RASPHistogram histogram) {
+			this.thread = new WeakReference<Thread>(thread);
+			this.histogram = histogram;
+		}
+
+	}
+
+}
@@ -0,0 +1,271 @@
+package org.javaweb.rasp.commons.metrics;
+
+import org.javaweb.rasp.commons.hooks.RASPHookRegistry;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.rasp.proxy.loader.RASPModuleType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.System.nanoTime;
+import static org.javaweb.rasp.commons.config.RASPConfiguration.AGENT_PROPERTIES;
+import static org.javaweb.rasp.commons.config.RASPConfiguration.MODULES_LOGGER;
+import static org.javaweb.rasp.commons.log.RASPLogger.errorLog;
+import static org.javaweb.rasp.commons.utils.JsonUtils.toJson;
+import static org.javaweb.rasp.loader.AgentConstants.AGENT_NAME;
+
+/**
+ * RASP模块和Hook的调用统计，在rasp.properties中配置metrics=true后开启，
+ * 统计结果通过JMX（org.javaweb.rasp:type=RASPMetrics）导出，并按metrics_dump_interval定时输出到模块日志中，
+ * MXBean和定时输出任务只在RASP启动时开启了调用统计才会注册。
+ * <p>
+ * Hook调用统计由{@link org.javaweb.rasp.commons.hooks.RASPHookDispatcher}记录，Http请求过滤模块的调用统计由
+ * {@link org.javaweb.rasp.commons.context.RASPRequestContextManager#requestFilter}记录，
+ * 防御模块的检测统计由防御模块调用{@link #recordModule(RASPModuleType, long, boolean)}记录。
+ * <p>
+ * 除了调用统计，还使用直方图记录每个请求的RASP自身耗时（不包括应用代码的耗时）和每个模块的检测耗时分布。
+ */
+public class RASPMetrics implements RASPMetricsMXBean {
+
+	public static final String OBJECT_NAME = "org.javaweb.rasp:type=RASPMetrics";
+
+	public static final RASPMetrics INSTANCE = new RASPMetrics();
+
+	/**
+	 * 模块名称 -> 模块调用统计
+	 */
+	private static final ConcurrentMap<String, RASPMetricsCounter> MODULE_COUNTERS =
+			new ConcurrentHashMap<String, RASPMetricsCounter>();
+
+	/**
+	 * 每个请求的RASP自身耗时分布
+	 */
+	private static final RASPHistogramRecorder REQUEST_HISTOGRAM = new RASPHistogramRecorder("request");
+
+	/**
+	 * 模块名称 -> 模块检测耗时分布
+	 */
+	private static final ConcurrentMap<String, RASPHistogramRecorder> MODULE_HISTOGRAMS =
+			new ConcurrentHashMap<String, RASPHistogramRecorder>();
+
+	static {
+		// 只在启动时开启了调用统计才注册MXBean和定时输出任务
+		if (isMetricsEnabled()) {
+			register();
+		}
+	}
+
+	private RASPMetrics() {
+	}
+
+	private static void register() {
+		try {
+			MBeanServer server     = ManagementFactory.getPlatformMBeanServer();
+			ObjectName  objectName = new ObjectName(OBJECT_NAME);
+
+			if (!server.isRegistered(objectName)) {
+				server.registerMBean(INSTANCE, objectName);
+			}
+		} catch (Exception e) {
+			errorLog("注册RASPMetrics MXBean异常：", e);
+		}
+
+		long interval = TimeUnit.SECONDS.toMillis(AGENT_PROPERTIES.getMetricsDumpInterval());
+
+		if (interval > 0) {
+			Timer timer = new Timer("RASP-Metrics", true);
+
+			timer.scheduleAtFixedRate(new TimerTask() {
+				@Override
+				public void run() {
+					if (isMetricsEnabled() && MODULES_LOGGER.isInfoEnabled()) {
+						MODULES_LOGGER.info("{}调用统计：\n{}", AGENT_NAME, INSTANCE.dump());
+					}
+				}
+			}, interval, interval);
+		}
+	}
+
+	/**
+	 * 是否开启了调用统计
+	 *
+	 * @return 是否开启
+	 */
+	public static boolean isMetricsEnabled() {
+		return AGENT_PROPERTIES.isMetrics();
+	}
+
+	/**
+	 * 获取模块调用统计，模块第一次调用时创建
+	 *
+	 * @param name 模块名称
+	 * @param id   模块ID
+	 * @return 模块调用统计
+	 */
+	public static RASPMetricsCounter getModuleCounter(String name, int id) {
+		RASPMetricsCounter counter = MODULE_COUNTERS.get(name);
+
+		if (counter == null) {
+			RASPMetricsCounter newCounter = new RASPMetricsCounter(name, id);
+
+			counter = MODULE_COUNTERS.putIfAbsent(name, newCounter);
+
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+
+		return counter;
+	}
+
+	/**
+	 * 记录防御模块的检测耗时
+	 *
+	 * @param moduleType 模块类型
+	 * @param startNanos 检测开始时间（System.nanoTime()）
+	 * @param blocked    是否拦截
+	 */
+	public static void recordModule(RASPModuleType moduleType, long startNanos, boolean blocked) {
+		if (isMetricsEnabled()) {
+			recordModuleTime(moduleType, nanoTime() - startNanos, blocked);
+		}
+	}
+
+	/**
+	 * 记录防御模块的检测耗时
+	 *
+	 * @param moduleType 模块类型
+	 * @param elapsed    检测耗时（纳秒）
+	 * @param blocked    是否拦截
+	 */
+	public static void recordModuleTime(RASPModuleType moduleType, long elapsed, boolean blocked) {
+		String moduleName = moduleType.getModuleName();
+
+		getModuleCounter(moduleName, moduleType.getModuleId()).record(elapsed, blocked);
+		getModuleHistogram(moduleName).record(elapsed);
+	}
+
+	/**
+	 * 记录请求的RASP自身耗时
+	 *
+	 * @param selfNanos RASP自身耗时（纳秒）
+	 */
+	public static void recordRequest(long selfNanos) {
+		REQUEST_HISTOGRAM.record(selfNanos);
+	}
+
+	private static RASPHistogramRecorder getModuleHistogram(String name) {
+		RASPHistogramRecorder recorder = MODULE_HISTOGRAMS.get(name);
+
+		if (recorder == null) {
+			RASPHistogramRecorder newRecorder = new RASPHistogramRecorder(name);
+
+			recorder = MODULE_HISTOGRAMS.putIfAbsent(name, newRecorder);
+
+			if (recorder == null) {
+				recorder = newRecorder;
+			}
+		}
+
+		return recorder;
+	}
+
+	/**
+	 * 获取请求和模块的耗时分布，单位：纳秒
+	 *
+	 * @return 耗时分布，如：{"request": {"count": 100, "p99": 150000, ...}, "modules": {"cmd": {...}}}
+	 */
+	public static Map<String, Object> getLatencyHistogramMap() {
+		Map<String, Object> map     = new LinkedHashMap<String, Object>();
+		Map<String, Object> modules = new LinkedHashMap<String, Object>();
+
+		for (RASPHistogramRecorder recorder : MODULE_HISTOGRAMS.values()) {
+			modules.put(recorder.getName(), recorder.snapshot().toMap());
+		}
+
+		map.put("request", REQUEST_HISTOGRAM.snapshot().toMap());
+		map.put("modules", modules);
+
+		return map;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return isMetricsEnabled();
+	}
+
+	@Override
+	public List<RASPMetricsCounter> getModuleMetrics() {
+		return new ArrayList<RASPMetricsCounter>(MODULE_COUNTERS.values());
+	}
+
+	@Override
+	public List<RASPMetricsCounter> getHookMetrics() {
+		return RASPHookRegistry.getHookCounters();
+	}
+
+	@Override
+	public String getLatencyHistograms() {
+		return toJson(getLatencyHistogramMap());
+	}
+
+	@Override
+	public String dump() {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("[modules]\n");
+		dump(sb, getModuleMetrics());
+		sb.append("[hooks]\n");
+		dump(sb, getHookMetrics());
+		sb.append("[latency]\n").append(getLatencyHistograms()).append('\n');
+
+		return sb.toString();
+	}
+
+	private static void dump(StringBuilder sb, List<RASPMetricsCounter> counters) {
+		for (RASPMetricsCounter counter : counters) {
+			long count = counter.getInvocationCount();
+
+			if (count == 0) {
+				continue;
+			}
+
+			long total = counter.getTotalNanos();
+
+			sb.append(counter.getName()).append('(').append(counter.getId()).append(')')
+					.append(" count=").append(count)
+					.append(" total=").append(TimeUnit.NANOSECONDS.toMicros(total)).append("us")
+					.append(" avg=").append(total / count).append("ns")
+					.append(" max=").append(counter.getMaxNanos()).append("ns")
+					.append(" blocks=").append(counter.getBlockCount())
+					.append('\n');
+		}
+	}
+
+	@Override
+	public void reset() {
+		for (RASPMetricsCounter counter : MODULE_COUNTERS.values()) {
+			counter.reset();
+		}
+
+		for (RASPMetricsCounter counter : RASPHookRegistry.getHookCounters()) {
+			counter.reset();
+		}
+
+		for (RASPHistogramRecorder recorder : MODULE_HISTOGRAMS.values()) {
+			recorder.reset();
+		}
+
+		REQUEST_HISTOGRAM.reset();
+	}
+
+}
@@ -0,0 +1,90 @@
+package org.javaweb.rasp.commons.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RASP模块或Hook的调用统计：调用次数、累计耗时、最大耗时和拦截次数，
+ * 通过RASPMetricsMXBean导出时按属性转换为CompositeData
+ */
+public class RASPMetricsCounter {
+
+	/**
+	 * 统计名称，模块名称或Hook处理类和Hook方法
+	 */
+	private final String name;
+
+	/**
+	 * 模块ID或Hook HASH
+	 */
+	private final int id;
+
+	private final RASPStripedCounter invocations = new RASPStripedCounter();
+
+	private final RASPStripedCounter nanos = new RASPStripedCounter();
+
+	private final RASPStripedCounter blocks = new RASPStripedCounter();
+
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public RASPMetricsCounter(String name, int id) {
+		this.name = name;
+		this.id = id;
+	}
+
+	/**
+	 * 记录一次调用
+	 *
+	 * @param elapsed 调用耗时（纳秒）
+	 * @param blocked 是否拦截
+	 */
+	public void record(long elapsed, boolean blocked) {
+		invocations.increment();
+		nanos.add(elapsed);
+
+		if (blocked) {
+			blocks.increment();
+		}
+
+		// 最大耗时很少更新，只在超过当前值时CAS
+		for (long max = maxNanos.get(); elapsed > max; max = maxNanos.get()) {
+			if (maxNanos.compareAndSet(max, elapsed)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * 清零所有统计
+	 */
+	public void reset() {
+		invocations.reset();
+		nanos.reset();
+		blocks.reset();
+		maxNanos.set(0);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public long getInvocationCount() {
+		return invocations.sum();
+	}
+
+	public long getTotalNanos() {
+		return nanos.sum();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	public long getBlockCount() {
+		return blocks.sum();
+	}
+
+}
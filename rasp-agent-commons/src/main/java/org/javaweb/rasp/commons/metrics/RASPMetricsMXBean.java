@@ -0,0 +1,50 @@
+package org.javaweb.rasp.commons.metrics;
+
+import java.util.List;
+
+/**
+ * RASP模块和Hook调用统计的JMX接口，ObjectName为：org.javaweb.rasp:type=RASPMetrics
+ */
+public interface RASPMetricsMXBean {
+
+	/**
+	 * 是否开启了调用统计（rasp.properties中的metrics配置）
+	 *
+	 * @return 是否开启
+	 */
+	boolean isEnabled();
+
+	/**
+	 * 获取所有防御模块（包括Http请求过滤模块）的调用统计
+	 *
+	 * @return 模块调用统计
+	 */
+	List<RASPMetricsCounter> getModuleMetrics();
+
+	/**
+	 * 获取所有Hook的调用统计
+	 *
+	 * @return Hook调用统计
+	 */
+	List<RASPMetricsCounter> getHookMetrics();
+
+	/**
+	 * 获取每个请求的RASP自身耗时和每个模块检测耗时的分布（JSON格式，单位：纳秒）
+	 *
+	 * @return 耗时分布
+	 */
+	String getLatencyHistograms();
+
+	/**
+	 * 以文本格式输出所有调用统计
+	 *
+	 * @return 调用统计
+	 */
+	String dump();
+
+	/**
+	 * 清零所有调用统计
+	 */
+	void reset();
+
+}
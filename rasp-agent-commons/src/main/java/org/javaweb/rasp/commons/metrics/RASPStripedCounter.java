@@ -0,0 +1,110 @@
+package org.javaweb.rasp.commons.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段计数器，与JDK8的LongAdder类似：没有竞争时只累加base，第一次CAS失败后创建按线程分段的计数数组，
+ * 不同线程累加不同的分段以减少竞争，读取时累加所有分段。
+ * <p>
+ * RASP需要兼容JDK6，所以不能直接使用LongAdder，分段数组使用AtomicLongArray实现，
+ * 每个分段间隔一个缓存行，避免伪共享。
+ */
+public class RASPStripedCounter {
+
+	/**
+	 * 分段之间的间隔（long个数），64字节的缓存行
+	 */
+	private static final int PADDING = 8;
+
+	/**
+	 * 分段数，CPU核数向上取2的幂，最多16个分段
+	 */
+	private static final int STRIPES = stripes();
+
+	private final AtomicLong base = new AtomicLong();
+
+	private volatile AtomicLongArray cells;
+
+	private static int stripes() {
+		int cpus    = Runtime.getRuntime().availableProcessors();
+		int stripes = 1;
+
+		while (stripes < cpus && stripes < 16) {
+			stripes <<= 1;
+		}
+
+		return stripes;
+	}
+
+	public void increment() {
+		add(1);
+	}
+
+	public void add(long x) {
+		AtomicLongArray cs = cells;
+
+		if (cs == null) {
+			long b = base.get();
+
+			if (base.compareAndSet(b, b + x)) {
+				return;
+			}
+
+			cs = createCells();
+		}
+
+		cs.addAndGet(index(), x);
+	}
+
+	/**
+	 * 获取计数值，并发累加时返回的不是精确的快照
+	 *
+	 * @return 计数值
+	 */
+	public long sum() {
+		long            sum = base.get();
+		AtomicLongArray cs  = cells;
+
+		if (cs != null) {
+			for (int i = 0; i < cs.length(); i += PADDING) {
+				sum += cs.get(i);
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * 清零计数器
+	 */
+	public void reset() {
+		base.set(0);
+
+		AtomicLongArray cs = cells;
+
+		if (cs != null) {
+			for (int i = 0; i < cs.length(); i += PADDING) {
+				cs.set(i, 0);
+			}
+		}
+	}
+
+	private synchronized AtomicLongArray createCells() {
+		if (cells == null) {
+			cells = new AtomicLongArray(STRIPES * PADDING);
+		}
+
+		return cells;
+	}
+
+	/**
+	 * 根据线程ID计算当前线程使用的分段
+	 */
+	private static int index() {
+		long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+
+		return ((int) (id >>> 32) & (STRIPES - 1)) * PADDING;
+	}
+
+}
@@ -0,0 +1,44 @@
+package org.javaweb.rasp.benchmarks;
+
+import org.javaweb.rasp.commons.MethodHookEvent;
+import org.javaweb.rasp.commons.attack.RASPAttackInfo;
+import org.javaweb.rasp.commons.context.RASPRequestContext;
+
+/**
+ * 基准测试使用的RASP上下文，不依赖Servlet容器
+ */
+public class BenchmarkContext extends RASPRequestContext {
+
+	public BenchmarkContext(MethodHookEvent event, String requestPath) {
+		super(event, "/ROOT", requestPath);
+	}
+
+	@Override
+	public String getRequestIP() {
+		return "192.168.1.100";
+	}
+
+	@Override
+	public String getServerIP() {
+		return "127.0.0.1";
+	}
+
+	@Override
+	public int getServerPort() {
+		return 8080;
+	}
+
+	@Override
+	public void blockRequest(RASPAttackInfo attack) {
+		this.blockedRequest = true;
+	}
+
+	/**
+	 * 重置攻击状态，避免攻击请求测试时攻击记录无限增长
+	 */
+	public void resetAttacks() {
+		this.attacks.clear();
+		this.blockedRequest = false;
+	}
+
+}
@@ -0,0 +1,32 @@
+package org.javaweb.rasp.benchmarks;
+
+import org.javaweb.rasp.commons.RASPParameterFilter;
+import org.javaweb.rasp.commons.cache.RASPCachedParameter;
+import org.javaweb.rasp.commons.context.RASPContext;
+
+import java.rasp.proxy.loader.HookResult;
+import java.rasp.proxy.loader.RASPHookException;
+
+import static java.rasp.proxy.loader.HookResultType.THROW;
+import static org.javaweb.rasp.benchmarks.RASPBenchmarkEnv.ATTACK_COMMAND;
+import static org.javaweb.rasp.commons.constants.RASPConstants.DEFAULT_STRING_ARRAY_RESULT;
+
+/**
+ * 模拟参数过滤模块，参数值为系统命令时返回阻断结果
+ */
+public class BenchmarkParameterFilter implements RASPParameterFilter {
+
+	private static final HookResult<String[]> BLOCK_RESULT = new HookResult<String[]>(THROW, new RASPHookException());
+
+	@Override
+	public HookResult<String[]> filter(RASPCachedParameter parameter, RASPContext context) {
+		for (String value : parameter.getValue()) {
+			if (ATTACK_COMMAND.equals(value)) {
+				return BLOCK_RESULT;
+			}
+		}
+
+		return DEFAULT_STRING_ARRAY_RESULT;
+	}
+
+}
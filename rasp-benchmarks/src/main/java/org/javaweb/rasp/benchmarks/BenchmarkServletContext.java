@@ -0,0 +1,146 @@
+package org.javaweb.rasp.benchmarks;
+
+import org.javaweb.rasp.commons.MethodHookEvent;
+import org.javaweb.rasp.commons.attack.RASPAttackInfo;
+import org.javaweb.rasp.commons.context.RASPServletRequestContext;
+import org.javaweb.rasp.commons.logback.classic.Logger;
+import org.javaweb.rasp.commons.servlet.HttpServletRequestProxy;
+import org.javaweb.rasp.commons.servlet.HttpServletResponseProxy;
+
+import java.io.File;
+
+/**
+ * 基准测试使用的Servlet请求RASP上下文，用于测试请求/响应流缓存，不依赖Servlet容器
+ */
+public class BenchmarkServletContext extends RASPServletRequestContext {
+
+	private final int contentLength;
+
+	private final boolean webApiRequest;
+
+	public BenchmarkServletContext(MethodHookEvent event, int contentLength, boolean webApiRequest) {
+		super(event, "/ROOT", "/upload.do");
+
+		this.contentLength = contentLength;
+		this.webApiRequest = webApiRequest;
+	}
+
+	@Override
+	public String getRequestIP() {
+		return "192.168.1.100";
+	}
+
+	@Override
+	public String getServerIP() {
+		return "127.0.0.1";
+	}
+
+	@Override
+	public int getServerPort() {
+		return 8080;
+	}
+
+	@Override
+	public void blockRequest(RASPAttackInfo attack) {
+		this.blockedRequest = true;
+	}
+
+	@Override
+	public String getUserAgent() {
+		return "Mozilla/5.0";
+	}
+
+	@Override
+	public boolean isJspFile() {
+		return false;
+	}
+
+	@Override
+	public String getRequestURI() {
+		return "/ROOT/upload.do";
+	}
+
+	@Override
+	public String getServletPath() {
+		return "/upload.do";
+	}
+
+	@Override
+	public ClassLoader getAdapterClassLoader() {
+		return getClass().getClassLoader();
+	}
+
+	@Override
+	public boolean isWebApiRequest() {
+		return webApiRequest;
+	}
+
+	@Override
+	public int getContentLength() {
+		return contentLength;
+	}
+
+	@Override
+	public int getMaxStreamCacheSize() {
+		return 10;
+	}
+
+	@Override
+	public boolean isJsonRequest() {
+		return webApiRequest;
+	}
+
+	@Override
+	public boolean isXmlRequest() {
+		return false;
+	}
+
+	@Override
+	public boolean isInternalAPIRequest() {
+		return false;
+	}
+
+	@Override
+	public File getJspFilePath() {
+		return null;
+	}
+
+	@Override
+	public File getRequestFile() {
+		return null;
+	}
+
+	@Override
+	public void preJSPRequest() {
+	}
+
+	@Override
+	public void setJspFilePath(File filePath) {
+	}
+
+	@Override
+	public File getDocumentRoot() {
+		return null;
+	}
+
+	@Override
+	public String getQueryString() {
+		return null;
+	}
+
+	@Override
+	public Logger initTraceLogger() {
+		return null;
+	}
+
+	@Override
+	public HttpServletRequestProxy getServletRequest() {
+		return null;
+	}
+
+	@Override
+	public HttpServletResponseProxy getServletResponse() {
+		return null;
+	}
+
+}
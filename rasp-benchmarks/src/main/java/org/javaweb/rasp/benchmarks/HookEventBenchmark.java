@@ -0,0 +1,126 @@
+package org.javaweb.rasp.benchmarks;
+
+import org.javaweb.rasp.commons.MethodHookEvent;
+import org.javaweb.rasp.commons.RASPHookEventPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.rasp.proxy.loader.HookEvent;
+import java.util.concurrent.TimeUnit;
+
+import static org.javaweb.rasp.benchmarks.RASPBenchmarkEnv.*;
+import static org.javaweb.rasp.commons.context.RASPRequestContextManager.cleanContext;
+import static org.javaweb.rasp.commons.context.RASPRequestContextManager.setContext;
+
+/**
+ * HookEvent -> MethodHookEvent 创建及请求上下文探测开销，可回收Hook事件的开销，以及Hook方法参数装箱的开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HookEventBenchmark {
+
+	@Param({NO_REQUEST, CLEAN_REQUEST, ATTACK_REQUEST})
+	public String requestType;
+
+	private final Object thisObject = new Object();
+
+	private final Object[] args = new Object[]{"select * from users where id = ?"};
+
+	private final byte[] buffer = new byte[8192];
+
+	/**
+	 * read(byte[],int,int)的off和len，超出Integer缓存范围，装箱时每次都会创建Integer对象
+	 */
+	private int off = 1024, len = 4096;
+
+	private BenchmarkContext context;
+
+	@Setup
+	public void setup() {
+		init();
+
+		if (!NO_REQUEST.equals(requestType)) {
+			context = createContext(requestType, thisObject);
+			setContext(context);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (context != null) {
+			cleanContext(createRequestEntryEvent(thisObject), context);
+		}
+	}
+
+	@Benchmark
+	public boolean createMethodHookEvent() {
+		HookEvent e = new HookEvent(
+				thisObject, args, null, METHOD_ENTER_EVENT, 1024, "com.mysql.jdbc.ConnectionImpl",
+				"prepareStatement", "(Ljava/lang/String;)Ljava/sql/PreparedStatement;"
+		);
+
+		MethodHookEvent event = new MethodHookEvent(e, null);
+
+		return event.hasRequest();
+	}
+
+	/**
+	 * 可回收Hook事件：同一次方法调用的方法进入、方法退出事件复用同一个MethodHookEvent
+	 */
+	@Benchmark
+	public boolean recycledMethodHookEvent() {
+		MethodHookEvent event = RASPHookEventPool.acquire(
+				thisObject, args, METHOD_ENTER_EVENT, 1024, "com.mysql.jdbc.ConnectionImpl",
+				"prepareStatement", "(Ljava/lang/String;)Ljava/sql/PreparedStatement;", null
+		);
+
+		try {
+			boolean hasRequest = event.hasRequest();
+
+			event.reinitEvent(METHOD_EXIT_EVENT, thisObject);
+
+			return hasRequest && event.getThisReturnValue() != null;
+		} finally {
+			RASPHookEventPool.release(event);
+		}
+	}
+
+	/**
+	 * 使用参数数组创建read(byte[],int,int)的Hook事件，所有基本类型参数都需要装箱
+	 */
+	@Benchmark
+	public int boxedReadArgs() {
+		MethodHookEvent event = RASPHookEventPool.acquire(
+				thisObject, new Object[]{buffer, off, len}, METHOD_ENTER_EVENT, 2048, "java.io.InputStream",
+				"read", "([BII)I", null
+		);
+
+		try {
+			return event.hasRequest() ? ((Integer) event.getThisArg(2)) : 0;
+		} finally {
+			RASPHookEventPool.release(event);
+		}
+	}
+
+	/**
+	 * 使用参数视图创建read(byte[],int,int)的Hook事件，基本类型参数不需要装箱
+	 */
+	@Benchmark
+	public int lazyReadArgs() {
+		MethodHookEvent event = RASPHookEventPool.acquire(
+				thisObject, "LII", METHOD_ENTER_EVENT, 2048, "java.io.InputStream", "read", "([BII)I", null
+		);
+
+		event.getHookArgs().setObject(0, buffer).setInt(1, off).setInt(2, len);
+
+		try {
+			return event.hasRequest() ? event.getIntArg(2) : 0;
+		} finally {
+			RASPHookEventPool.release(event);
+		}
+	}
+
+}
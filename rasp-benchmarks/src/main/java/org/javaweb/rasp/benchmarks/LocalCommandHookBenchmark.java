@@ -0,0 +1,119 @@
+package org.javaweb.rasp.benchmarks;
+
+import org.javaweb.rasp.agent.hooks.cmd.LocalCommandHook;
+import org.javaweb.rasp.agent.hooks.cmd.LocalCommandHook.ProcessBuilderHook;
+import org.javaweb.rasp.commons.MethodHookEvent;
+import org.javaweb.rasp.commons.hooks.RASPHookDispatcher;
+import org.javaweb.rasp.commons.hooks.RASPHookRegistry;
+import org.javaweb.rasp.commons.hooks.RASPMethodHook;
+import org.openjdk.jmh.annotations.*;
+
+import java.rasp.proxy.loader.HookEvent;
+import java.rasp.proxy.loader.HookResult;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.javaweb.rasp.benchmarks.RASPBenchmarkEnv.*;
+import static org.javaweb.rasp.commons.constants.RASPConstants.DEFAULT_HOOK_RESULT;
+import static org.javaweb.rasp.commons.context.RASPRequestContextManager.cleanContext;
+import static org.javaweb.rasp.commons.context.RASPRequestContextManager.setContext;
+
+/**
+ * 完整的Hook调用链路：创建Hook事件 -> ProcessBuilderHook.onMethodEnter -> LocalCommandHookHandler.processCommand，
+ * 使用-jvmArgsAppend -Dmetrics=true测试调用统计的开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalCommandHookBenchmark {
+
+	@Param({NO_REQUEST, CLEAN_REQUEST, ATTACK_REQUEST})
+	public String requestType;
+
+	private final Object servlet = new Object();
+
+	private final Object[] args = new Object[0];
+
+	private final ProcessBuilderHook hook = new ProcessBuilderHook();
+
+	private ProcessBuilder processBuilder;
+
+	private int hookHash;
+
+	private BenchmarkContext context;
+
+	@Setup
+	public void setup() {
+		init();
+
+		processBuilder = new ProcessBuilder(ATTACK_COMMAND);
+
+		RASPHookRegistry.reload(Collections.<Class<?>>singleton(LocalCommandHook.class));
+		hookHash = RASPHookRegistry.getHookHash(
+				ProcessBuilderHook.class, ProcessBuilderHook.class.getAnnotation(RASPMethodHook.class)
+		);
+
+		if (!NO_REQUEST.equals(requestType)) {
+			context = createContext(requestType, servlet);
+			setContext(context);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (context != null) {
+			cleanContext(createRequestEntryEvent(servlet), context);
+		}
+	}
+
+	@Benchmark
+	public HookResult<?> processBuilderStart() {
+		HookEvent e = new HookEvent(
+				processBuilder, args, null, METHOD_ENTER_EVENT, 2048, "java.lang.ProcessBuilder",
+				"start", "()Ljava/lang/Process;"
+		);
+
+		HookResult<?> result = hook.onMethodEnter(new MethodHookEvent(e, null));
+
+		if (context != null) {
+			context.resetAttacks();
+		}
+
+		return result;
+	}
+
+	/**
+	 * 与Hook代理的调用方式一致：先调用preCheck，预检测通过后才创建Hook事件，无请求时不应产生任何对象分配
+	 */
+	@Benchmark
+	public HookResult<?> preCheckedProcessBuilderStart() {
+		if (!hook.preCheck()) {
+			return DEFAULT_HOOK_RESULT;
+		}
+
+		return processBuilderStart();
+	}
+
+	/**
+	 * 通过RASPHookDispatcher分发Hook事件
+	 */
+	@Benchmark
+	public HookResult<?> dispatchedProcessBuilderStart() {
+		HookEvent e = new HookEvent(
+				processBuilder, args, null, METHOD_ENTER_EVENT, hookHash, "java.lang.ProcessBuilder",
+				"start", "()Ljava/lang/Process;"
+		);
+
+		HookResult<?> result = RASPHookDispatcher.onMethodEnter(hookHash, new MethodHookEvent(e, null));
+
+		if (context != null) {
+			context.resetAttacks();
+		}
+
+		return result;
+	}
+
+}
@@ -0,0 +1,174 @@
+package org.javaweb.rasp.benchmarks;
+
+import org.javaweb.rasp.commons.MethodHookEvent;
+import org.javaweb.rasp.commons.cache.RASPCachedParameter;
+import org.javaweb.rasp.commons.cache.RASPParameterSet;
+import org.javaweb.rasp.commons.config.RASPConfiguration;
+import org.javaweb.rasp.commons.context.RASPContextBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.rasp.proxy.loader.HookEvent;
+
+import static org.javaweb.rasp.commons.constants.RASPAppConstants.SERVLET_STREAM_MEMORY_CACHE_SIZE;
+import static org.javaweb.rasp.commons.constants.RASPConfigConstants.CONTEXT_RECYCLE;
+import static org.javaweb.rasp.commons.constants.RASPConfigConstants.METRICS;
+import static org.javaweb.rasp.commons.attack.RASPPosition.PARAMETER;
+import static org.javaweb.rasp.commons.constants.RASPConstants.*;
+
+/**
+ * RASP基准测试运行环境，负责在RASPConfiguration初始化之前生成测试用的配置文件
+ */
+public class RASPBenchmarkEnv {
+
+	/**
+	 * 当前线程中不存在Http请求（定时任务、批处理线程等）
+	 */
+	public static final String NO_REQUEST = "none";
+
+	/**
+	 * 正常的Http请求，请求参数不包含攻击
+	 */
+	public static final String CLEAN_REQUEST = "clean";
+
+	/**
+	 * 攻击请求，请求参数中包含了被执行的系统命令
+	 */
+	public static final String ATTACK_REQUEST = "attack";
+
+	/**
+	 * 攻击请求中传入的系统命令
+	 */
+	public static final String ATTACK_COMMAND = "whoami";
+
+	/**
+	 * 模拟的方法进入Hook事件
+	 */
+	public static final int METHOD_ENTER_EVENT = 0;
+
+	/**
+	 * 模拟的方法退出Hook事件
+	 */
+	public static final int METHOD_EXIT_EVENT = 1;
+
+	private static boolean initialized;
+
+	/**
+	 * 初始化基准测试环境，必须在访问任何RASP配置相关的类之前调用
+	 */
+	public static synchronized void init() {
+		if (initialized) {
+			return;
+		}
+
+		// 与RASPConfiguration.RASP_CACHE_DIRECTORY的计算方式保持一致，引用class对象不会触发类初始化
+		File cacheDir = new File(
+				RASPConfiguration.class.getProtectionDomain().getCodeSource().getLocation().getFile()
+		).getParentFile();
+
+		File configDir = new File(cacheDir, "config");
+
+		if (!configDir.exists() && !configDir.mkdirs()) {
+			throw new RuntimeException("无法创建RASP配置目录：" + configDir);
+		}
+
+		try {
+			// 使用-Dcontext_recycle=true测试RASP上下文容器复用（需要同时关闭inheritable_context），使用-Dmetrics=true测试调用统计的开销，
+			// 使用-Dservlet_stream_memory_cache_size=64测试请求体超过64KB后写入临时文件的开销
+			writeConfig(new File(configDir, AGENT_CONFIG_FILE_NAME),
+					"log.level=ERROR\n" +
+							"context_recycle=" + Boolean.getBoolean(CONTEXT_RECYCLE) + "\n" +
+							"inheritable_context=" + !Boolean.getBoolean(CONTEXT_RECYCLE) + "\n" +
+							"hook_event_recycle=true\n" +
+							"metrics=" + Boolean.getBoolean(METRICS) + "\n" +
+							"metrics_dump_interval=0\n"
+			);
+			writeConfig(new File(configDir, AGENT_RULES_FILE_NAME), "disable_cmd=false\n");
+			writeConfig(new File(configDir, DEFAULT_AGENT_APP_FILE_NAME),
+					"app_id=benchmark\n" +
+							"modules.open=cmd,sql,file\n" +
+							"module.defense=true\n" +
+							"silent=false\n" +
+							"rasp_process_timeout=0\n" +
+							"servlet_stream=false\n" +
+							"servlet_stream_memory_cache_size=" + Integer.getInteger(SERVLET_STREAM_MEMORY_CACHE_SIZE, 0) + "\n"
+			);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		// 基准测试不需要向Web应用注入Adapter
+		RASPContextBuilder.adapterInjected.set(true);
+
+		// 注册模拟的参数过滤模块
+		RASPParameterSet.addParameterFilter(BenchmarkParameterFilter.class.getName());
+
+		initialized = true;
+	}
+
+	private static void writeConfig(File file, String content) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+
+		try {
+			out.write(content.getBytes(DEFAULT_ENCODING));
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * 创建模拟的Servlet请求入口Hook事件
+	 *
+	 * @param servlet 请求入口对象
+	 * @return Hook事件
+	 */
+	public static MethodHookEvent createRequestEntryEvent(Object servlet) {
+		HookEvent e = new HookEvent(
+				servlet, new Object[0], null, METHOD_ENTER_EVENT, 0, "javax.servlet.http.HttpServlet", "service",
+				"(Ljavax/servlet/ServletRequest;Ljavax/servlet/ServletResponse;)V"
+		);
+
+		return new MethodHookEvent(e, null);
+	}
+
+	/**
+	 * 创建测试用的RASP上下文，并缓存requestType对应的请求参数
+	 *
+	 * @param requestType 请求类型
+	 * @param servlet     请求入口对象
+	 * @return RASP上下文
+	 */
+	public static BenchmarkContext createContext(String requestType, Object servlet) {
+		BenchmarkContext context = new BenchmarkContext(createRequestEntryEvent(servlet), "/index.do");
+
+		for (RASPCachedParameter parameter : createParameters(requestType)) {
+			context.getCachedRequest().getCachedParameter().cacheParameter(parameter, context);
+		}
+
+		return context;
+	}
+
+	/**
+	 * 生成一组典型的请求参数，攻击请求的最后一个参数值为系统命令
+	 *
+	 * @param requestType 请求类型
+	 * @return 请求参数
+	 */
+	public static RASPCachedParameter[] createParameters(String requestType) {
+		String lastValue = ATTACK_REQUEST.equals(requestType) ? ATTACK_COMMAND : "desc";
+
+		return new RASPCachedParameter[]{
+				new RASPCachedParameter("id", "10086", PARAMETER),
+				new RASPCachedParameter("page", "1", PARAMETER),
+				new RASPCachedParameter("size", "20", PARAMETER),
+				new RASPCachedParameter("keyword", "javaweb rasp", PARAMETER),
+				new RASPCachedParameter("tags", new String[]{"java", "agent", "security"}, PARAMETER),
+				new RASPCachedParameter("token", "2b1b9a3c6e6f4d7a8f0c1e2d3b4a5968", PARAMETER),
+				new RASPCachedParameter("lang", "zh_CN", PARAMETER),
+				new RASPCachedParameter("order", lastValue, PARAMETER)
+		};
+	}
+
+}
@@ -0,0 +1,139 @@
+package org.javaweb.rasp.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static org.javaweb.rasp.commons.utils.IOUtils.closeQuietly;
+
+/**
+ * RASP基准测试入口，默认开启GC分析器输出每次操作的内存分配率（gc.alloc.rate.norm），
+ * 使用方式：java -jar rasp-benchmarks/target/benchmarks.jar [JMH参数]
+ */
+public class RASPBenchmarkRunner {
+
+	/**
+	 * java.rasp.proxy包只能由BootstrapClassLoader加载，与rasp-loader.jar的加载方式保持一致
+	 */
+	private static final String PROXY_PACKAGE_PATH = "java/rasp/";
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmdOptions = new CommandLineOptions(args);
+
+		OptionsBuilder builder = new OptionsBuilder();
+		builder.parent(cmdOptions);
+
+		// 未指定需要运行的基准测试时运行全部的RASP基准测试
+		if (cmdOptions.getIncludes().isEmpty()) {
+			builder.include(RASPBenchmarkRunner.class.getPackage().getName() + ".*");
+		}
+
+		List<String> jvmArgs = new ArrayList<String>();
+		Collection<String> appendArgs = cmdOptions.getJvmArgsAppend().orElse(null);
+
+		if (appendArgs != null) {
+			jvmArgs.addAll(appendArgs);
+		}
+
+		jvmArgs.add("-Xbootclasspath/a:" + extractProxyClasses().getAbsolutePath());
+
+		builder.jvmArgsAppend(jvmArgs.toArray(new String[0]));
+		builder.addProfiler(GCProfiler.class);
+
+		new Runner(builder.build()).run();
+	}
+
+	/**
+	 * 将java.rasp.proxy包下的类提取到临时目录，用于添加到被测试JVM的bootclasspath
+	 *
+	 * @return 临时目录
+	 * @throws Exception 读取或写入类文件异常
+	 */
+	private static File extractProxyClasses() throws Exception {
+		URL url = ClassLoader.getSystemResource(PROXY_PACKAGE_PATH + "proxy/loader/HookEvent.class");
+
+		if (url == null) {
+			throw new IllegalStateException("未找到rasp-loader-commons中的java.rasp.proxy包！");
+		}
+
+		File dir = File.createTempFile("rasp-benchmarks", "");
+
+		if (!dir.delete() || !dir.mkdirs()) {
+			throw new IOException("无法创建临时目录：" + dir);
+		}
+
+		if ("jar".equals(url.getProtocol())) {
+			JarFile jarFile = ((JarURLConnection) url.openConnection()).getJarFile();
+
+			Enumeration<JarEntry> entries = jarFile.entries();
+
+			while (entries.hasMoreElements()) {
+				JarEntry entry = entries.nextElement();
+
+				if (!entry.isDirectory() && entry.getName().startsWith(PROXY_PACKAGE_PATH)) {
+					copy(jarFile.getInputStream(entry), new File(dir, entry.getName()));
+				}
+			}
+		} else {
+			// IDE中运行时rasp-loader-commons为class目录
+			String path = new File(url.toURI()).getAbsolutePath().replace('\\', '/');
+			File   root = new File(path.substring(0, path.lastIndexOf(PROXY_PACKAGE_PATH)), PROXY_PACKAGE_PATH);
+
+			copyDirectory(root, new File(dir, PROXY_PACKAGE_PATH));
+		}
+
+		return dir;
+	}
+
+	private static void copyDirectory(File src, File dest) throws IOException {
+		File[] files = src.listFiles();
+
+		if (files == null) return;
+
+		for (File file : files) {
+			if (file.isDirectory()) {
+				copyDirectory(file, new File(dest, file.getName()));
+			} else {
+				copy(new FileInputStream(file), new File(dest, file.getName()));
+			}
+		}
+	}
+
+	private static void copy(InputStream in, File dest) throws IOException {
+		File parent = dest.getParentFile();
+
+		if (!parent.exists() && !parent.mkdirs()) {
+			throw new IOException("无法创建目录：" + parent);
+		}
+
+		OutputStream out = new FileOutputStream(dest);
+
+		try {
+			byte[] buf = new byte[4096];
+
+			for (int len; (len = in.read(buf)) != -1; ) {
+				out.write(buf, 0, len);
+			}
+		} finally {
+			closeQuietly(in);
+			closeQuietly(out);
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package org.javaweb.rasp.benchmarks;
+
+import org.javaweb.rasp.agent.hooks.cmd.LocalCommandHook;
+import org.javaweb.rasp.commons.MethodHookEvent;
+import org.javaweb.rasp.commons.RASPCallback;
+import org.javaweb.rasp.commons.cache.RASPCachedParameter;
+import org.javaweb.rasp.commons.cache.RASPParameterOccurrence;
+import org.javaweb.rasp.commons.cache.RASPParameterSet;
+import org.javaweb.rasp.commons.cache.RASPRequestCached;
+import org.javaweb.rasp.commons.context.RASPContext;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.rasp.proxy.loader.HookResult;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.javaweb.rasp.benchmarks.RASPBenchmarkEnv.*;
+import static org.javaweb.rasp.commons.context.RASPContextBuilder.createContext;
+import static org.javaweb.rasp.commons.context.RASPRequestContextManager.cleanContext;
+import static org.javaweb.rasp.commons.context.RASPRequestContextManager.getContext;
+
+/**
+ * RASP上下文生命周期：createContext、mustFilter、cacheParameter、cleanContext，
+ * 使用-jvmArgsAppend -Dcontext_recycle=true测试RASP上下文容器复用
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RASPContextBenchmark {
+
+	@Param({CLEAN_REQUEST, ATTACK_REQUEST})
+	public String requestType;
+
+	private final Object servlet = new Object();
+
+	private RASPCachedParameter[] parameters;
+
+	private BenchmarkContext context;
+
+	private RASPCallback<RASPContext> callback;
+
+	/**
+	 * 一次报表请求中执行的SQL语句hashCode
+	 */
+	private final int[] sqlHashCodes = new int[2000];
+
+	private RASPRequestCached sqlCachedRequest;
+
+	@Setup
+	public void setup(BenchmarkParams params) {
+		init();
+
+		parameters = createParameters(requestType);
+
+		sqlCachedRequest = new RASPRequestCached();
+
+		for (int i = 0; i < sqlHashCodes.length; i++) {
+			sqlHashCodes[i] = ("select * from report where id = " + i).hashCode();
+		}
+
+		// 常驻的RASP上下文会占用当前线程的RASP上下文容器，createAndCleanContext不能创建
+		if (!params.getBenchmark().endsWith(".createAndCleanContext")) {
+			context = RASPBenchmarkEnv.createContext(requestType, servlet);
+		}
+
+		callback = new RASPCallback<RASPContext>() {
+			@Override
+			public RASPContext callback(Object... obj) {
+				BenchmarkContext ctx = new BenchmarkContext((MethodHookEvent) obj[0], "/index.do");
+
+				for (RASPCachedParameter parameter : parameters) {
+					ctx.getCachedRequest().getCachedParameter().cacheParameter(parameter, ctx);
+				}
+
+				return ctx;
+			}
+		};
+	}
+
+	/**
+	 * 一次完整的请求：创建上下文、缓存请求参数、请求过滤、记录日志并清除上下文
+	 */
+	@Benchmark
+	public void createAndCleanContext(Blackhole bh) {
+		MethodHookEvent event  = createRequestEntryEvent(servlet);
+		HookResult<?>   result = createContext(event, callback);
+
+		bh.consume(result);
+
+		RASPContext ctx = getContext();
+
+		if (ctx != null) {
+			cleanContext(event, ctx);
+		}
+	}
+
+	@Benchmark
+	public boolean mustFilter() {
+		return context.mustFilter(LocalCommandHook.CMD_TYPE);
+	}
+
+	/**
+	 * 缓存一个请求的全部参数，每次调用都使用新的参数集合，与一次请求的开销一致
+	 */
+	@Benchmark
+	public RASPParameterSet<RASPCachedParameter> cacheParameter(Blackhole bh) {
+		RASPParameterSet<RASPCachedParameter> set = new RASPParameterSet<RASPCachedParameter>();
+
+		for (RASPCachedParameter parameter : parameters) {
+			bh.consume(set.cacheParameter(parameter, context));
+		}
+
+		return set;
+	}
+
+	/**
+	 * 一次请求中执行2000条不同的SQL语句，每条SQL语句检测前先查询是否已检测过
+	 */
+	@Benchmark
+	public int sqlQueryCache() {
+		int checked = 0;
+
+		for (int hashCode : sqlHashCodes) {
+			if (!sqlCachedRequest.containsSQLQueryCache(hashCode)) {
+				sqlCachedRequest.cacheSqlHashCode(hashCode);
+				checked++;
+			}
+		}
+
+		sqlCachedRequest.reset();
+
+		return checked;
+	}
+
+	/**
+	 * 查找SQL语句中出现的所有请求参数值（Aho-Corasick多模式匹配，自动机在第一次调用时创建并缓存）
+	 */
+	@Benchmark
+	public List<RASPParameterOccurrence> findParameterOccurrences() {
+		return context.getCachedRequest().findParameterOccurrences(
+				"select * from article where id = 10086 and lang = 'zh_CN' order by create_time desc limit 20"
+		);
+	}
+
+	/**
+	 * 与findParameterOccurrences相同的检测，遍历所有参数值并逐个查找
+	 */
+	@Benchmark
+	public int nestedLoopParameterOccurrences() {
+		String sql   = "select * from article where id = 10086 and lang = 'zh_CN' order by create_time desc limit 20";
+		int    count = 0;
+
+		for (RASPCachedParameter parameter : context.getCachedRequest().getCachedParameter()) {
+			for (String value : parameter.getValue()) {
+				if (value.length() >= 2 && sql.contains(value)) {
+					count++;
+				}
+			}
+		}
+
+		return count;
+	}
+
+}
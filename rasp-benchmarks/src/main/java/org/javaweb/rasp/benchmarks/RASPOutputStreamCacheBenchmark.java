@@ -0,0 +1,79 @@
+package org.javaweb.rasp.benchmarks;
+
+import org.javaweb.rasp.commons.cache.RASPOutputStreamCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.javaweb.rasp.benchmarks.RASPBenchmarkEnv.createRequestEntryEvent;
+import static org.javaweb.rasp.benchmarks.RASPBenchmarkEnv.init;
+
+/**
+ * 请求体缓存：Servlet输入流每次读取的数据按8KB写入RASPOutputStreamCache，
+ * byteLoop模拟只实现write(int)时OutputStream.write(byte[], int, int)逐字节写入的方式，
+ * 使用-jvmArgsAppend -Dservlet_stream_memory_cache_size=64测试超过64KB的数据写入临时文件
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RASPOutputStreamCacheBenchmark {
+
+	/**
+	 * 请求体大小
+	 */
+	@Param({"65536", "1048576"})
+	public int bodySize;
+
+	/**
+	 * Servlet输入流每次读取的字节数
+	 */
+	private static final int READ_SIZE = 8192;
+
+	private byte[] body;
+
+	private BenchmarkServletContext context;
+
+	@Setup
+	public void setup() {
+		init();
+
+		body = new byte[bodySize];
+		new Random(bodySize).nextBytes(body);
+
+		context = new BenchmarkServletContext(createRequestEntryEvent(new Object()), bodySize, false);
+	}
+
+	@Benchmark
+	public int bulkWrite() throws IOException {
+		RASPOutputStreamCache cache = new RASPOutputStreamCache(context, null);
+
+		for (int off = 0; off < bodySize; off += READ_SIZE) {
+			cache.write(body, off, Math.min(READ_SIZE, bodySize - off));
+		}
+
+		cache.release();
+
+		return bodySize;
+	}
+
+	@Benchmark
+	public int byteLoop() throws IOException {
+		RASPOutputStreamCache cache = new RASPOutputStreamCache(context, null);
+
+		for (int off = 0; off < bodySize; off += READ_SIZE) {
+			for (int i = off, end = Math.min(off + READ_SIZE, bodySize); i < end; i++) {
+				cache.write(body[i]);
+			}
+		}
+
+		cache.release();
+
+		return bodySize;
+	}
+
+}
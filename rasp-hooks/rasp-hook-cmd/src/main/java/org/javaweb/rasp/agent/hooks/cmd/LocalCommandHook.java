@@ -13,6 +13,7 @@ import java.util.Map;
 
 import static org.javaweb.rasp.agent.hooks.cmd.handler.LocalCommandHookHandler.processCommand;
 import static org.javaweb.rasp.commons.constants.RASPConstants.DEFAULT_HOOK_RESULT;
+import static org.javaweb.rasp.commons.context.RASPRequestContextManager.hasRequestContext;
 import static org.javaweb.rasp.commons.log.RASPLogger.errorLog;
 import static org.javaweb.rasp.commons.utils.ReflectionUtils.invokeFieldProxy;
 import static org.javaweb.rasp.commons.utils.ReflectionUtils.invokeFieldProxy;
@@ -30,8 +31,21 @@ public class LocalCommandHook implements RASPClassHook {
 	@RASPMethodHook(className = "java.lang.ProcessBuilder", methodName = "start", requireRequest = false)
 	public static class ProcessBuilderHook extends RASPMethodAdvice {
 
+		/**
+		 * 只检测Http请求中的命令执行，无请求时无需创建Hook事件
+		 */
+		@Override
+		public boolean preCheck() {
+			return hasRequestContext();
+		}
+
 		@Override
 		public HookResult<?> onMethodEnter(MethodHookEvent event) {
+			// 当前线程中不包含HTTP请求时不需要获取命令参数
+			if (!event.hasRequest()) {
+				return DEFAULT_HOOK_RESULT;
+			}
+
 			Object obj = event.getThisObject();
 
 			try {
@@ -2,17 +2,16 @@ package org.javaweb.rasp.agent.hooks.cmd.handler;
 
 import org.javaweb.rasp.commons.MethodHookEvent;
 import org.javaweb.rasp.commons.attack.RASPAttackInfo;
-import org.javaweb.rasp.commons.attack.RASPPosition;
 import org.javaweb.rasp.commons.cache.RASPCachedParameter;
+import org.javaweb.rasp.commons.cache.RASPParameterIndex;
 import org.javaweb.rasp.commons.cache.RASPRequestCached;
 import org.javaweb.rasp.commons.context.RASPContext;
-import org.javaweb.rasp.commons.utils.StringUtils;
 
 import java.rasp.proxy.loader.HookResult;
 import java.rasp.proxy.loader.RASPHookException;
 import java.util.List;
-import java.util.Set;
 
+import static java.lang.System.nanoTime;
 import static java.rasp.proxy.loader.HookResultType.THROW;
 import static org.javaweb.rasp.agent.hooks.cmd.LocalCommandHook.CMD_TYPE;
 import static org.javaweb.rasp.commons.attack.RASPAlertType.RULES;
@@ -35,8 +34,6 @@ public class LocalCommandHookHandler {
 	 * @return Hook处理结果
 	 */
 	public static HookResult<?> processCommand(List<String> command, MethodHookEvent event) {
-		String[] commands = command.toArray(new String[0]);
-
 		// 如果当前线程中不包含HTTP请求则不需要检测
 		if (event.hasRequest()) {
 			RASPContext       context       = event.getRASPContext();
@@ -47,41 +44,44 @@ public class LocalCommandHookHandler {
 				return DEFAULT_HOOK_RESULT;
 			}
 
-			Set<RASPCachedParameter> cachedParameters = cachedRequest.getCachedParameter();
-
-			// 只过滤请求参数值，忽略请求参数名称，因为参数名出现命令执行的概率太低
-			for (RASPCachedParameter parameterValue : cachedParameters) {
-				// 请求参数名称
-				String key = parameterValue.getKey();
-
-				// 请求参数值
-				String[] values = parameterValue.getValue();
-
-				// 请求参数出现的位置
-				RASPPosition position = parameterValue.getRaspAttackPosition();
-
-				// 遍历所有的参数值
-				for (String value : values) {
-					if (StringUtils.isEmpty(value)) {
-						continue;
-					}
-
-					// 遍历被执行的系统命令
-					for (String cmd : commands) {
-						if (value.equals(cmd)) {
-							// 添加攻击日志记录
-							context.addAttackInfo(new RASPAttackInfo.Builder()
-									.bindParameters(key, values, cmd, true)
-									.bindType(position, CMD_TYPE, RULES)
-									.build()
-							);
-
-							return BLOCK_RESULT;
-						}
-					}
-				}
+			long          startNanos = nanoTime();
+			HookResult<?> result     = null;
+
+			try {
+				return result = checkCommand(command, context, cachedRequest);
+			} finally {
+				// 记录模块检测耗时，用于自适应熔断和调用统计
+				context.recordModule(CMD_TYPE, startNanos, result == BLOCK_RESULT);
 			}
+		}
+
+		return DEFAULT_HOOK_RESULT;
+	}
+
+	private static HookResult<?> checkCommand(List<String> command, RASPContext context, RASPRequestCached cachedRequest) {
+		RASPParameterIndex parameterIndex = cachedRequest.getCachedParameter().getParameterIndex();
 
+		// 只过滤请求参数值，忽略请求参数名称，因为参数名出现命令执行的概率太低
+		if (parameterIndex.size() == 0) {
+			return DEFAULT_HOOK_RESULT;
+		}
+
+		// 遍历被执行的系统命令，查找与命令完全一致的请求参数值
+		for (String cmd : command) {
+			int index = parameterIndex.indexOfValue(cmd);
+
+			if (index >= 0) {
+				RASPCachedParameter parameter = parameterIndex.getParameter(index);
+
+				// 添加攻击日志记录
+				context.addAttackInfo(new RASPAttackInfo.Builder()
+						.bindParameters(parameter.getKey(), parameter.getValue(), cmd, true)
+						.bindType(parameter.getRaspAttackPosition(), CMD_TYPE, RULES)
+						.build()
+				);
+
+				return BLOCK_RESULT;
+			}
 		}
 
 		return DEFAULT_HOOK_RESULT;
@@ -0,0 +1,222 @@
+package java.rasp.proxy.loader;
+
+import java.util.Arrays;
+
+/**
+ * Hook类方法参数视图，字节码编辑器生成的代码按参数下标直接写入参数值，基本类型参数不需要装箱，
+ * 只有在调用toArray时才会创建Object[]。
+ * <p>
+ * 参数类型使用方法描述符中的类型字符表示，每个参数一个字符：L（对象或数组）、Z、B、C、S、I、J、F、D，
+ * 如：read(byte[],int,int)的参数类型为"LII"。
+ */
+public class HookArgs {
+
+	private static final Object[] EMPTY_ARGS = new Object[0];
+
+	/**
+	 * 参数类型
+	 */
+	private String argTypes;
+
+	/**
+	 * 基本类型参数值，float、double使用raw bits存储
+	 */
+	private long[] primitives;
+
+	/**
+	 * 对象类型参数值
+	 */
+	private Object[] objects;
+
+	/**
+	 * 参数个数
+	 */
+	private int size;
+
+	public HookArgs(String argTypes) {
+		reinit(argTypes);
+	}
+
+	/**
+	 * 重新初始化参数视图，参数个数超过当前容量时才会重新创建数组，用于复用同一线程中的参数视图
+	 *
+	 * @param argTypes 参数类型
+	 * @return 当前参数视图
+	 */
+	public HookArgs reinit(String argTypes) {
+		int length = argTypes.length();
+
+		if (objects == null || objects.length < length) {
+			this.objects = new Object[length];
+			this.primitives = new long[length];
+		}
+
+		this.argTypes = argTypes;
+		this.size = length;
+
+		return this;
+	}
+
+	/**
+	 * 清除参数视图中引用的对象
+	 */
+	public void reset() {
+		Arrays.fill(objects, 0, size, null);
+		this.size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * 获取参数类型字符
+	 *
+	 * @param index 参数下标
+	 * @return 参数类型
+	 */
+	public char getArgType(int index) {
+		return argTypes.charAt(index);
+	}
+
+	public HookArgs setObject(int index, Object value) {
+		objects[index] = value;
+		return this;
+	}
+
+	public HookArgs setInt(int index, int value) {
+		primitives[index] = value;
+		return this;
+	}
+
+	public HookArgs setLong(int index, long value) {
+		primitives[index] = value;
+		return this;
+	}
+
+	public HookArgs setFloat(int index, float value) {
+		primitives[index] = Float.floatToRawIntBits(value);
+		return this;
+	}
+
+	public HookArgs setDouble(int index, double value) {
+		primitives[index] = Double.doubleToRawLongBits(value);
+		return this;
+	}
+
+	public HookArgs setBoolean(int index, boolean value) {
+		primitives[index] = value ? 1 : 0;
+		return this;
+	}
+
+	public HookArgs setByte(int index, byte value) {
+		primitives[index] = value;
+		return this;
+	}
+
+	public HookArgs setChar(int index, char value) {
+		primitives[index] = value;
+		return this;
+	}
+
+	public HookArgs setShort(int index, short value) {
+		primitives[index] = value;
+		return this;
+	}
+
+	public Object getObject(int index) {
+		switch (getArgType(index)) {
+			case 'Z':
+				return getBoolean(index);
+			case 'B':
+				return getByte(index);
+			case 'C':
+				return getChar(index);
+			case 'S':
+				return getShort(index);
+			case 'I':
+				return getInt(index);
+			case 'J':
+				return getLong(index);
+			case 'F':
+				return getFloat(index);
+			case 'D':
+				return getDouble(index);
+			default:
+				return objects[index];
+		}
+	}
+
+	public int getInt(int index) {
+		return isFloating(index) ? (int) getFloating(index) : (int) primitives[index];
+	}
+
+	public long getLong(int index) {
+		return isFloating(index) ? (long) getFloating(index) : primitives[index];
+	}
+
+	public float getFloat(int index) {
+		if (getArgType(index) == 'F') {
+			return Float.intBitsToFloat((int) primitives[index]);
+		}
+
+		return isFloating(index) ? (float) getFloating(index) : (float) primitives[index];
+	}
+
+	public double getDouble(int index) {
+		return isFloating(index) ? getFloating(index) : (double) primitives[index];
+	}
+
+	public boolean getBoolean(int index) {
+		return isFloating(index) ? getFloating(index) != 0 : primitives[index] != 0;
+	}
+
+	public byte getByte(int index) {
+		return (byte) getInt(index);
+	}
+
+	public char getChar(int index) {
+		return (char) getInt(index);
+	}
+
+	public short getShort(int index) {
+		return (short) getInt(index);
+	}
+
+	/**
+	 * 参数是否是float或double类型，float、double参数值使用raw bits存储，读取为其他类型时需要先还原再转换
+	 */
+	private boolean isFloating(int index) {
+		char type = getArgType(index);
+
+		return type == 'F' || type == 'D';
+	}
+
+	private double getFloating(int index) {
+		if (getArgType(index) == 'F') {
+			return Float.intBitsToFloat((int) primitives[index]);
+		}
+
+		return Double.longBitsToDouble(primitives[index]);
+	}
+
+	/**
+	 * 创建参数数组，基本类型参数会被装箱
+	 *
+	 * @return 参数数组
+	 */
+	public Object[] toArray() {
+		if (size == 0) {
+			return EMPTY_ARGS;
+		}
+
+		Object[] args = new Object[size];
+
+		for (int i = 0; i < size; i++) {
+			args[i] = getObject(i);
+		}
+
+		return args;
+	}
+
+}
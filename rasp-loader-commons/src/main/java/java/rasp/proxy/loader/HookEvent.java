@@ -7,45 +7,128 @@ public class HookEvent {
 	/**
 	 * Hook类示例化对象，如果是static方法该值为该类类名
 	 */
-	private final Object thisObject;
+	private Object thisObject;
 
 	/**
-	 * Hook类方法参数
+	 * Hook类方法参数，使用参数视图创建的Hook事件在调用getThisArgs时才会创建
 	 */
-	private final Object[] thisArgs;
+	private Object[] thisArgs;
+
+	/**
+	 * Hook类方法参数视图，为null时表示Hook事件直接使用参数数组创建
+	 */
+	private HookArgs hookArgs;
 
 	/**
 	 * Hook类方法返回值，void或方法进入事件该值为null
 	 */
-	private final Object thisReturnValue;
+	private Object thisReturnValue;
 
 	/**
 	 * Hook类方法事件（方法进入、方法退出、方法异常）
 	 */
-	private final int thisMethodEvent;
+	private int thisMethodEvent;
 
 	/**
 	 * Hook HASH值
 	 */
-	private final int hookHash;
+	private int hookHash;
+
+	private String className;
 
-	private final String className;
+	private String methodName;
 
-	private final String methodName;
+	private String methodDesc;
 
-	private final String methodDesc;
+	/**
+	 * 创建一个空的Hook事件，仅用于可回收的Hook事件，使用前必须调用reinit方法初始化
+	 */
+	public HookEvent() {
+	}
 
 	public HookEvent(Object thisObject, Object[] thisArgs, Object thisReturnValue, int thisMethodEvent,
 	                 int hookHash, String className, String methodName, String methodDesc) {
 
+		reinit(thisObject, thisArgs, thisReturnValue, thisMethodEvent, hookHash, className, methodName, methodDesc);
+	}
+
+	/**
+	 * 使用参数视图创建Hook事件，基本类型参数不需要装箱
+	 */
+	public HookEvent(Object thisObject, HookArgs hookArgs, Object thisReturnValue, int thisMethodEvent,
+	                 int hookHash, String className, String methodName, String methodDesc) {
+
+		reinit(thisObject, hookArgs, thisReturnValue, thisMethodEvent, hookHash, className, methodName, methodDesc);
+	}
+
+	/**
+	 * 重新初始化Hook事件，用于复用同一线程中已回收的Hook事件对象
+	 *
+	 * @return 当前Hook事件
+	 */
+	public HookEvent reinit(Object thisObject, Object[] thisArgs, Object thisReturnValue, int thisMethodEvent,
+	                        int hookHash, String className, String methodName, String methodDesc) {
+
 		this.thisObject = thisObject;
 		this.thisArgs = thisArgs;
+		this.hookArgs = null;
 		this.thisReturnValue = thisReturnValue;
 		this.thisMethodEvent = thisMethodEvent;
 		this.hookHash = hookHash;
 		this.className = className;
 		this.methodName = methodName;
 		this.methodDesc = methodDesc;
+
+		return this;
+	}
+
+	/**
+	 * 使用参数视图重新初始化Hook事件，参数数组在调用getThisArgs时才会创建
+	 *
+	 * @return 当前Hook事件
+	 */
+	public HookEvent reinit(Object thisObject, HookArgs hookArgs, Object thisReturnValue, int thisMethodEvent,
+	                        int hookHash, String className, String methodName, String methodDesc) {
+
+		reinit(thisObject, (Object[]) null, thisReturnValue, thisMethodEvent, hookHash, className, methodName, methodDesc);
+		this.hookArgs = hookArgs;
+
+		return this;
+	}
+
+	/**
+	 * 切换同一次方法调用的Hook事件类型（方法进入 -> 方法退出/方法异常），方法参数和Hook信息保持不变
+	 *
+	 * @param thisMethodEvent Hook类方法事件
+	 * @param thisReturnValue Hook类方法返回值
+	 * @return 当前Hook事件
+	 */
+	public HookEvent reinitEvent(int thisMethodEvent, Object thisReturnValue) {
+		this.thisMethodEvent = thisMethodEvent;
+		this.thisReturnValue = thisReturnValue;
+
+		return this;
+	}
+
+	/**
+	 * 计算Hook HASH，RASPHookRegistry注册Hook时使用该方法计算hookHash。
+	 * 字节码编辑器生成Hook代码时必须按相同的方式计算（约定见RASPHookDispatcher），计算方式不一致时Hook事件无法分发到对应的Hook处理类
+	 *
+	 * @param adviceClassName Hook处理类名
+	 * @param className       需要Hook的类名
+	 * @param methodName      需要Hook的方法名
+	 * @param methodArgsDesc  需要Hook的方法参数描述符
+	 * @return Hook HASH
+	 */
+	public static int hookHash(String adviceClassName, String className, String methodName, String methodArgsDesc) {
+		return (adviceClassName + "#" + className + "." + methodName + methodArgsDesc).hashCode();
+	}
+
+	/**
+	 * 清除Hook事件中引用的对象，避免回收后的Hook事件持有应用对象
+	 */
+	public void reset() {
+		reinit(null, (Object[]) null, null, 0, 0, null, null, null);
 	}
 
 	public Object getThisObject() {
@@ -53,9 +136,130 @@ public class HookEvent {
 	}
 
 	public Object[] getThisArgs() {
+		if (thisArgs == null && hookArgs != null) {
+			thisArgs = hookArgs.toArray();
+		}
+
 		return thisArgs;
 	}
 
+	/**
+	 * 获取Hook类方法参数视图
+	 *
+	 * @return 参数视图，Hook事件直接使用参数数组创建时返回null
+	 */
+	public HookArgs getHookArgs() {
+		return hookArgs;
+	}
+
+	/**
+	 * 获取Hook方法参数个数
+	 *
+	 * @return 参数个数
+	 */
+	public int getArgCount() {
+		if (hookArgs != null) {
+			return hookArgs.size();
+		}
+
+		return thisArgs != null ? thisArgs.length : 0;
+	}
+
+	/**
+	 * 获取Hook方法的单个参数值，基本类型参数会被装箱，但不会创建参数数组
+	 *
+	 * @param index 索引
+	 * @return 参数值
+	 */
+	public Object getObjectArg(int index) {
+		if (hookArgs != null) {
+			return hookArgs.getObject(index);
+		}
+
+		return thisArgs[index];
+	}
+
+	/**
+	 * 将装箱的参数值转换为数值，与HookArgs的转换方式一致：char转换为字符编码，boolean转换为1/0
+	 */
+	private static Number toNumber(Object arg) {
+		if (arg instanceof Character) {
+			return (int) (Character) arg;
+		} else if (arg instanceof Boolean) {
+			return (Boolean) arg ? 1 : 0;
+		}
+
+		return (Number) arg;
+	}
+
+	public int getIntArg(int index) {
+		if (hookArgs != null) {
+			return hookArgs.getInt(index);
+		}
+
+		return toNumber(thisArgs[index]).intValue();
+	}
+
+	public long getLongArg(int index) {
+		if (hookArgs != null) {
+			return hookArgs.getLong(index);
+		}
+
+		return toNumber(thisArgs[index]).longValue();
+	}
+
+	public float getFloatArg(int index) {
+		if (hookArgs != null) {
+			return hookArgs.getFloat(index);
+		}
+
+		return toNumber(thisArgs[index]).floatValue();
+	}
+
+	public double getDoubleArg(int index) {
+		if (hookArgs != null) {
+			return hookArgs.getDouble(index);
+		}
+
+		return toNumber(thisArgs[index]).doubleValue();
+	}
+
+	public boolean getBooleanArg(int index) {
+		if (hookArgs != null) {
+			return hookArgs.getBoolean(index);
+		}
+
+		Object arg = thisArgs[index];
+
+		return arg instanceof Boolean ? (Boolean) arg : toNumber(arg).doubleValue() != 0;
+	}
+
+	public byte getByteArg(int index) {
+		if (hookArgs != null) {
+			return hookArgs.getByte(index);
+		}
+
+		return toNumber(thisArgs[index]).byteValue();
+	}
+
+	public char getCharArg(int index) {
+		if (hookArgs != null) {
+			return hookArgs.getChar(index);
+		}
+
+		Object arg = thisArgs[index];
+
+		return arg instanceof Character ? (Character) arg : (char) toNumber(arg).intValue();
+	}
+
+	public short getShortArg(int index) {
+		if (hookArgs != null) {
+			return hookArgs.getShort(index);
+		}
+
+		return toNumber(thisArgs[index]).shortValue();
+	}
+
 	/**
 	 * 通过传入参数数组下标获取Hook方法的单个参数值
 	 *
@@ -64,8 +268,8 @@ public class HookEvent {
 	 * @return 索引对应的类型
 	 */
 	public <T> T getThisArg(int index) {
-		if (thisArgs.length > index) {
-			return (T) thisArgs[index];
+		if (getArgCount() > index) {
+			return (T) getObjectArg(index);
 		}
 
 		return null;
@@ -111,7 +315,7 @@ public class HookEvent {
 		if (hookHash != that.hookHash) return false;
 
 		// Probably incorrect - comparing Object[] arrays with Arrays.equals
-		if (!Arrays.equals(thisArgs, that.thisArgs)) return false;
+		if (!Arrays.equals(getThisArgs(), that.getThisArgs())) return false;
 
 		if (thisReturnValue != null ? !thisReturnValue.equals(that.thisReturnValue) : that.thisReturnValue != null)
 			return false;
@@ -121,7 +325,7 @@ public class HookEvent {
 
 	@Override
 	public int hashCode() {
-		int result = Arrays.hashCode(thisArgs);
+		int result = Arrays.hashCode(getThisArgs());
 		result = 31 * result + (thisReturnValue != null ? thisReturnValue.hashCode() : 0);
 		result = 31 * result + thisMethodEvent;
 		result = 31 * result + hookHash;
@@ -133,7 +337,7 @@ public class HookEvent {
 	public String toString() {
 		return "HookEvent{" +
 				"thisObject=" + thisObject +
-				", thisArgs=" + Arrays.toString(thisArgs) +
+				", thisArgs=" + Arrays.toString(getThisArgs()) +
 				", thisReturnValue=" + thisReturnValue +
 				", thisMethodEvent=" + thisMethodEvent +
 				", hookHash=" + hookHash +
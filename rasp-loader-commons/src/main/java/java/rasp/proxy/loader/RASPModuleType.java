@@ -1,5 +1,10 @@
 package java.rasp.proxy.loader;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * RASP 安全模块枚举类
  * Creator: yz
@@ -27,15 +32,112 @@ public class RASPModuleType {
 	 */
 	private boolean printTrace = true;
 
+	/**
+	 * 可以使用long类型掩码表示的模块ID数，超过该值的模块ID无法使用掩码
+	 */
+	public static final int MAX_MASK_MODULE_ID = 64;
+
+	/**
+	 * 模块名称 -> 模块ID，模块ID从0开始按注册顺序分配，同名的模块使用相同的ID
+	 */
+	private static final Map<String, Integer> MODULE_IDS = new HashMap<String, Integer>();
+
+	/**
+	 * 模块ID -> 模块名称
+	 */
+	private static final List<String> MODULE_NAMES = new ArrayList<String>();
+
+	/**
+	 * 已注册的模块数，用于检测按模块名称计算的模块掩码是否需要重新计算
+	 */
+	private static volatile int moduleCount;
+
+	/**
+	 * 模块ID
+	 */
+	private final int moduleId;
+
 	public RASPModuleType(String moduleName, String moduleDesc) {
-		this.moduleName = moduleName;
-		this.moduleDesc = moduleDesc;
+		this(moduleName, moduleDesc, true);
 	}
 
 	public RASPModuleType(String moduleName, String moduleDesc, boolean printTrace) {
 		this.moduleName = moduleName;
 		this.moduleDesc = moduleDesc;
 		this.printTrace = printTrace;
+		this.moduleId = getModuleId(moduleName);
+	}
+
+	/**
+	 * 获取模块名称对应的模块ID，模块名称第一次使用时分配ID
+	 *
+	 * @param moduleName 模块名称
+	 * @return 模块ID
+	 */
+	public static synchronized int getModuleId(String moduleName) {
+		Integer id = MODULE_IDS.get(moduleName);
+
+		if (id == null) {
+			id = MODULE_IDS.size();
+			MODULE_IDS.put(moduleName, id);
+			MODULE_NAMES.add(moduleName);
+			moduleCount = MODULE_NAMES.size();
+		}
+
+		return id;
+	}
+
+	/**
+	 * 获取模块ID对应的模块名称
+	 *
+	 * @param moduleId 模块ID
+	 * @return 模块名称，模块ID未注册时返回null
+	 */
+	public static synchronized String getModuleName(int moduleId) {
+		return moduleId >= 0 && moduleId < MODULE_NAMES.size() ? MODULE_NAMES.get(moduleId) : null;
+	}
+
+	/**
+	 * 获取模块名称对应的模块掩码，模块名称第一次使用时分配ID，配置文件中的模块名称必须使用{@link #findModuleMask(String)}
+	 *
+	 * @param moduleName 模块名称
+	 * @return 模块掩码，模块ID超过MAX_MASK_MODULE_ID时返回0
+	 */
+	public static long getModuleMask(String moduleName) {
+		int id = getModuleId(moduleName);
+
+		return id < MAX_MASK_MODULE_ID ? 1L << id : 0;
+	}
+
+	/**
+	 * 查询已注册的模块名称对应的模块掩码，不会分配模块ID，用于配置文件中的模块名称（开启的模块、白名单攻击类型等），
+	 * 避免配置错误的模块名称占用模块ID
+	 *
+	 * @param moduleName 模块名称
+	 * @return 模块掩码，模块未注册或模块ID超过MAX_MASK_MODULE_ID时返回0
+	 */
+	public static synchronized long findModuleMask(String moduleName) {
+		Integer id = MODULE_IDS.get(moduleName);
+
+		return id != null && id < MAX_MASK_MODULE_ID ? 1L << id : 0;
+	}
+
+	/**
+	 * 获取已注册的模块数，注册新的模块后按模块名称计算的模块掩码需要重新计算
+	 *
+	 * @return 模块数
+	 */
+	public static int getModuleCount() {
+		return moduleCount;
+	}
+
+	/**
+	 * 获取模块ID
+	 *
+	 * @return 模块ID
+	 */
+	public int getModuleId() {
+		return moduleId;
 	}
 
 	/**